@@ -3,13 +3,14 @@ package com.cloud.play.CloudPlay.controller;
 
 import com.cloud.play.CloudPlay.DTO.RoomDTO;
 import com.cloud.play.CloudPlay.service.RoomService;
+import com.cloud.play.app.pagination.CursorPage;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
-import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -21,8 +22,14 @@ public class RoomController {
     private RoomService roomService;
     
     @GetMapping
-    public ResponseEntity<List<RoomDTO>> getAllRooms() {
-        List<RoomDTO> rooms = roomService.getAllRooms();
+    public ResponseEntity<CursorPage<RoomDTO>> getAllRooms(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean publicOnly,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime scheduledFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime scheduledTo) {
+        // A malformed cursor becomes a 400 in ApiExceptionHandler
+        CursorPage<RoomDTO> rooms = roomService.getRooms(publicOnly, scheduledFrom, scheduledTo, cursor, limit);
         return ResponseEntity.ok(rooms);
     }
     
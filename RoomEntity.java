@@ -1,13 +1,20 @@
 
+package com.cloud.play.CloudPlay.entity;
+
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
-import org.springframework.data.mongodb.core.mapping.DBRef;
 
 import java.time.LocalDateTime;
-import java.util.HashSet;
-import java.util.Set;
 
 @Document(collection = "rooms")
+@CompoundIndexes({
+    @CompoundIndex(name = "public_id", def = "{'isPrivate': 1, '_id': 1}"),
+    @CompoundIndex(name = "scheduled_id", def = "{'scheduledTime': 1, '_id': 1}"),
+    @CompoundIndex(name = "public_scheduled_id", def = "{'isPrivate': 1, 'scheduledTime': 1, '_id': 1}")
+})
 public class RoomEntity {
     @Id
     private String id;
@@ -18,10 +25,17 @@ public class RoomEntity {
     
     private LocalDateTime scheduledTime;
     
+    // Lookups of the rooms currently showing a given video
+    @Indexed(name = "currentVideoId")
     private String currentVideoId;
     
-    @DBRef
-    private Set<UserEntity> viewers = new HashSet<>();
+    // The scheduledTime whose START has already been broadcast; claimed atomically by one node
+    private LocalDateTime startedScheduleTime;
+    
+    // Count of this room's room_presence documents, bumped after each presence write; the two are
+    // separate writes, so a periodic recount repairs any drift. The partial index finds rooms to zero
+    @Indexed(name = "viewerCount_positive", partialFilter = "{ 'viewerCount': { $gt: 0 } }")
+    private int viewerCount;
     
     // Constructors
     public RoomEntity() {}
@@ -72,23 +86,19 @@ public class RoomEntity {
         this.currentVideoId = currentVideoId;
     }
     
-    public Set<UserEntity> getViewers() {
-        return viewers;
-    }
-    
-    public void setViewers(Set<UserEntity> viewers) {
-        this.viewers = viewers;
+    public LocalDateTime getStartedScheduleTime() {
+        return startedScheduleTime;
     }
     
-    public void addViewer(UserEntity user) {
-        this.viewers.add(user);
+    public void setStartedScheduleTime(LocalDateTime startedScheduleTime) {
+        this.startedScheduleTime = startedScheduleTime;
     }
     
-    public void removeViewer(UserEntity user) {
-        this.viewers.remove(user);
+    public int getViewerCount() {
+        return viewerCount;
     }
     
-    public int getViewerCount() {
-        return this.viewers.size();
+    public void setViewerCount(int viewerCount) {
+        this.viewerCount = viewerCount;
     }
 }
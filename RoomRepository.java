@@ -1,8 +1,17 @@
 
+package com.cloud.play.CloudPlay.repository;
+
+import com.cloud.play.CloudPlay.entity.RoomEntity;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Repository
-public interface RoomRepository extends MongoRepository<RoomEntity, String> {
-    // You can add custom query methods here if needed
+public interface RoomRepository extends MongoRepository<RoomEntity, String>, RoomRepositoryCustom {
+
+    @Query(value = "{ 'scheduledTime': { $gte: ?0, $lt: ?1 } }", fields = "{ 'scheduledTime': 1, 'startedScheduleTime': 1 }")
+    List<RoomEntity> findScheduledBetween(LocalDateTime from, LocalDateTime to);
 }
@@ -1,16 +1,28 @@
 
 package com.cloud.play.app.controller;
 
-import com.cloud.play.app.dto.VideoDTO;
+import com.cloud.play.app.dto.UploadJobDTO;
+import com.cloud.play.app.dto.UploadSessionDTO;
 import com.cloud.play.app.entity.VideoEntity;
+import com.cloud.play.app.service.HlsPackagingService;
+import com.cloud.play.app.service.ResumableUploadService;
+import com.cloud.play.app.service.UploadJobService;
 import com.cloud.play.app.service.VideoService;
+import com.cloud.play.app.streaming.LocalFileStreamer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.Map;
 import java.util.Optional;
@@ -22,43 +34,140 @@ public class VideoController {
     @Autowired
     private VideoService videoService;
 
+    @Autowired
+    private UploadJobService uploadJobService;
+
+    @Autowired
+    private ResumableUploadService resumableUploadService;
+
+    @Autowired
+    private HlsPackagingService hlsPackagingService;
+
+    @Autowired
+    private LocalFileStreamer localFileStreamer;
+
     @PostMapping("/upload")
     public ResponseEntity<?> uploadVideo(
             @RequestParam("file") MultipartFile file,
             @RequestParam("title") String title,
             @RequestParam("description") String description) {
         
+        // UploadCapacityFilter sheds load before the body is read; by now the container has spooled
+        // the file, and this only keeps a pool that filled up meanwhile from taking another job
+        if (!uploadJobService.hasCapacity()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .body(Map.of("error", "Upload queue is full, please retry later"));
+        }
+        
         try {
-            // Upload video to Cloudinary and get URL
-            String cloudinaryUrl = videoService.uploadVideo(file);
-            
-            // Create video entity with metadata
-            VideoEntity video = new VideoEntity();
-            video.setTitle(title);
-            video.setDescription(description);
-            video.setCloudinaryUrl(cloudinaryUrl);
-            
-            // Generate a thumbnail URL (could be enhanced with actual thumbnail generation)
-            video.setThumbnailUrl(cloudinaryUrl.replace("video/upload", "video/upload/so_auto,w_400,h_225,c_fill"));
-            
-            // Set estimated duration (this is a placeholder, real duration detection would be better)
-            video.setDuration(0); // This should be determined from the video itself
-            
-            video.setCreatedAt(LocalDateTime.now());
-            
-            // Save the video to database
-            VideoEntity savedVideo = videoService.saveVideo(video);
-            
-            return ResponseEntity.status(HttpStatus.CREATED).body(videoService.convertToDTO(savedVideo));
+            // Accept the upload as a job; the storage round-trip runs on the upload executor
+            UploadJobDTO job = uploadJobService.submit(file, title, description);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/videos/jobs/" + job.getId()))
+                    .body(job);
         } catch (IOException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("error", "Failed to upload video: " + e.getMessage()));
         }
     }
 
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<?> getUploadJob(@PathVariable String id) {
+        return uploadJobService.getJob(id)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/uploads")
+    public ResponseEntity<?> initResumableUpload(@RequestBody Map<String, Object> request) {
+        String title = (String) request.get("title");
+        Object totalBytes = request.get("totalBytes");
+        
+        if (title == null || title.trim().isEmpty() || totalBytes == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        try {
+            Integer chunkSize = null;
+            if (request.get("chunkSize") != null) {
+                chunkSize = Integer.parseInt(request.get("chunkSize").toString());
+            }
+            
+            UploadSessionDTO session = resumableUploadService.initSession(
+                    (String) request.get("filename"),
+                    title,
+                    (String) request.get("description"),
+                    Long.parseLong(totalBytes.toString()),
+                    chunkSize);
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .location(URI.create("/api/videos/uploads/" + session.getId()))
+                    .body(session);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to create upload session: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/uploads/{sessionId}")
+    public ResponseEntity<?> getResumableUpload(@PathVariable String sessionId) {
+        return resumableUploadService.getSession(sessionId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @PutMapping("/uploads/{sessionId}/chunks/{index}")
+    public ResponseEntity<?> uploadChunk(
+            @PathVariable String sessionId,
+            @PathVariable int index,
+            @RequestHeader("X-Chunk-CRC32C") String crc32c,
+            InputStream body) {
+        
+        try {
+            return resumableUploadService.writeChunk(sessionId, index, Long.parseLong(crc32c, 16), body)
+                    .map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to write chunk: " + e.getMessage()));
+        }
+    }
+
+    @PostMapping("/uploads/{sessionId}/complete")
+    public ResponseEntity<?> completeResumableUpload(@PathVariable String sessionId) {
+        try {
+            return resumableUploadService.complete(sessionId)
+                    .map(job -> ResponseEntity.accepted()
+                            .location(URI.create("/api/videos/jobs/" + job.getId()))
+                            .body(job))
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to assemble upload: " + e.getMessage()));
+        }
+    }
+
     @GetMapping
-    public ResponseEntity<?> getAllVideos() {
-        return ResponseEntity.ok(videoService.getAllVideos());
+    public ResponseEntity<?> getAllVideos(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo) {
+        // A malformed cursor becomes a 400 in ApiExceptionHandler
+        return ResponseEntity.ok(videoService.getVideos(createdFrom, createdTo, cursor, limit));
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<?> getVideoCacheStats() {
+        return ResponseEntity.ok(videoService.getVideoCacheStats());
     }
 
     @GetMapping("/{id}")
@@ -67,4 +176,52 @@ public class VideoController {
         return video.map(v -> ResponseEntity.ok(videoService.convertToDTO(v)))
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
+
+    @GetMapping("/{id}/stream")
+    public void streamVideo(
+            @PathVariable String id,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        
+        Optional<VideoEntity> video = videoService.getVideoById(id);
+        if (video.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        
+        Optional<Path> file = videoService.getLocalFile(video.get());
+        String remoteUrl = video.get().getCloudinaryUrl();
+        if (file.isPresent()) {
+            localFileStreamer.stream(file.get(), request, response);
+        } else if (remoteUrl != null && !remoteUrl.startsWith("/api/videos/")) {
+            // Not stored on this node; fall back to the storage backend's own URL
+            response.sendRedirect(remoteUrl);
+        } else {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+        }
+    }
+
+    @GetMapping("/{id}/hls/{fileName:.+}")
+    public void streamHls(
+            @PathVariable String id,
+            @PathVariable String fileName,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        
+        Optional<Path> file = hlsPackagingService.resolveFile(id, fileName);
+        if (file.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        
+        String contentType;
+        if (fileName.endsWith(".m3u8")) {
+            contentType = "application/vnd.apple.mpegurl";
+        } else if (fileName.endsWith(".m4s")) {
+            contentType = "video/iso.segment";
+        } else {
+            contentType = "video/mp4";
+        }
+        localFileStreamer.stream(file.get(), contentType, request, response);
+    }
 }
@@ -2,11 +2,14 @@
 package com.cloud.play.app.entity;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
 
 @Document(collection = "videos")
+@CompoundIndex(name = "createdAt_id", def = "{'createdAt': -1, '_id': -1}")
 public class VideoEntity {
     @Id
     private String id;
@@ -19,8 +22,24 @@ public class VideoEntity {
     
     private String thumbnailUrl;
     
+    private String storageKey;
+    
     private int duration;
     
+    private int width;
+    
+    private int height;
+    
+    private String videoCodec;
+    
+    private long bitrate;
+    
+    // Startup recovery looks up videos whose packaging never finished
+    @Indexed(name = "hlsStatus")
+    private String hlsStatus;
+    
+    private String hlsManifestUrl;
+    
     private LocalDateTime createdAt;
     
     // Constructors
@@ -37,6 +56,26 @@ public class VideoEntity {
         this.createdAt = LocalDateTime.now();
     }
     
+    // Field-by-field copy, so callers can edit a video without touching the cached instance
+    public VideoEntity copy() {
+        VideoEntity copy = new VideoEntity();
+        copy.id = id;
+        copy.title = title;
+        copy.description = description;
+        copy.cloudinaryUrl = cloudinaryUrl;
+        copy.thumbnailUrl = thumbnailUrl;
+        copy.storageKey = storageKey;
+        copy.duration = duration;
+        copy.width = width;
+        copy.height = height;
+        copy.videoCodec = videoCodec;
+        copy.bitrate = bitrate;
+        copy.hlsStatus = hlsStatus;
+        copy.hlsManifestUrl = hlsManifestUrl;
+        copy.createdAt = createdAt;
+        return copy;
+    }
+    
     // Getters and Setters
     public String getId() {
         return id;
@@ -78,6 +117,14 @@ public class VideoEntity {
         this.thumbnailUrl = thumbnailUrl;
     }
     
+    public String getStorageKey() {
+        return storageKey;
+    }
+    
+    public void setStorageKey(String storageKey) {
+        this.storageKey = storageKey;
+    }
+    
     public int getDuration() {
         return duration;
     }
@@ -86,6 +133,54 @@ public class VideoEntity {
         this.duration = duration;
     }
     
+    public int getWidth() {
+        return width;
+    }
+    
+    public void setWidth(int width) {
+        this.width = width;
+    }
+    
+    public int getHeight() {
+        return height;
+    }
+    
+    public void setHeight(int height) {
+        this.height = height;
+    }
+    
+    public String getVideoCodec() {
+        return videoCodec;
+    }
+    
+    public void setVideoCodec(String videoCodec) {
+        this.videoCodec = videoCodec;
+    }
+    
+    public long getBitrate() {
+        return bitrate;
+    }
+    
+    public void setBitrate(long bitrate) {
+        this.bitrate = bitrate;
+    }
+    
+    public String getHlsStatus() {
+        return hlsStatus;
+    }
+    
+    public void setHlsStatus(String hlsStatus) {
+        this.hlsStatus = hlsStatus;
+    }
+    
+    public String getHlsManifestUrl() {
+        return hlsManifestUrl;
+    }
+    
+    public void setHlsManifestUrl(String hlsManifestUrl) {
+        this.hlsManifestUrl = hlsManifestUrl;
+    }
+    
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
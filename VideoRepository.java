@@ -1,10 +1,14 @@
 
 package com.cloud.play.app.repository;
 
+import com.cloud.play.app.entity.VideoEntity;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
-public interface VideoRepository extends MongoRepository<VideoEntity, String> {
-    // You can add custom query methods here if needed
+public interface VideoRepository extends MongoRepository<VideoEntity, String>, VideoRepositoryCustom {
+
+    List<VideoEntity> findByHlsStatus(String hlsStatus);
 }
@@ -0,0 +1,61 @@
+package com.cloud.play.CloudPlay.entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+@Document(collection = "room_presence")
+public class RoomPresenceEntity {
+    // One document per (room, user); the composite id makes joins idempotent upserts
+    @Id
+    private String id;
+    
+    @Indexed
+    private String roomId;
+    
+    private String userId;
+    
+    private LocalDateTime joinedAt;
+    
+    // Constructors
+    public RoomPresenceEntity() {}
+    
+    public static String key(String roomId, String userId) {
+        return roomId + ":" + userId;
+    }
+    
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+    
+    public void setId(String id) {
+        this.id = id;
+    }
+    
+    public String getRoomId() {
+        return roomId;
+    }
+    
+    public void setRoomId(String roomId) {
+        this.roomId = roomId;
+    }
+    
+    public String getUserId() {
+        return userId;
+    }
+    
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+    
+    public LocalDateTime getJoinedAt() {
+        return joinedAt;
+    }
+    
+    public void setJoinedAt(LocalDateTime joinedAt) {
+        this.joinedAt = joinedAt;
+    }
+}
@@ -0,0 +1,23 @@
+package com.cloud.play.CloudPlay.repository;
+
+import com.cloud.play.CloudPlay.entity.RoomEntity;
+import com.cloud.play.app.pagination.PageCursor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Predicate;
+
+public interface RoomRepositoryCustom {
+
+    List<RoomEntity> findPage(boolean publicOnly, LocalDateTime scheduledFrom, LocalDateTime scheduledTo,
+                              PageCursor after, int limit);
+
+    boolean addViewer(String roomId, String userId);
+
+    boolean removeViewer(String roomId, String userId);
+    
+    // Recounts only rooms the filter accepts, so nodes can split the work
+    int recountViewers(Predicate<String> roomFilter);
+
+    boolean claimScheduledStart(String roomId, LocalDateTime scheduledTime);
+}
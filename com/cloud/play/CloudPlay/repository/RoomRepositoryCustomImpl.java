@@ -0,0 +1,158 @@
+package com.cloud.play.CloudPlay.repository;
+
+import com.cloud.play.CloudPlay.entity.RoomEntity;
+import com.cloud.play.CloudPlay.entity.RoomPresenceEntity;
+import com.cloud.play.app.pagination.PageCursor;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+public class RoomRepositoryCustomImpl implements RoomRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public List<RoomEntity> findPage(boolean publicOnly, LocalDateTime scheduledFrom, LocalDateTime scheduledTo,
+                                     PageCursor after, int limit) {
+        List<Criteria> filters = new ArrayList<>();
+        if (publicOnly) {
+            filters.add(Criteria.where("isPrivate").is(false));
+        }
+
+        // A schedule window orders by (scheduledTime, _id); otherwise _id alone is the keyset
+        boolean bySchedule = scheduledFrom != null || scheduledTo != null;
+        if (bySchedule) {
+            Criteria window = Criteria.where("scheduledTime");
+            if (scheduledFrom != null) {
+                window = window.gte(scheduledFrom);
+            }
+            if (scheduledTo != null) {
+                window = window.lt(scheduledTo);
+            }
+            filters.add(window);
+        }
+
+        if (after != null) {
+            if (bySchedule && after.getSortValue() != null) {
+                LocalDateTime lastScheduled = after.getSortTime();
+                filters.add(new Criteria().orOperator(
+                        Criteria.where("scheduledTime").gt(lastScheduled),
+                        new Criteria().andOperator(
+                                Criteria.where("scheduledTime").is(lastScheduled),
+                                Criteria.where("id").gt(after.getIdValue()))));
+            } else {
+                filters.add(Criteria.where("id").gt(after.getIdValue()));
+            }
+        }
+
+        Query query = new Query();
+        if (!filters.isEmpty()) {
+            query.addCriteria(new Criteria().andOperator(filters.toArray(new Criteria[0])));
+        }
+        query.with(bySchedule
+                ? Sort.by(Sort.Order.asc("scheduledTime"), Sort.Order.asc("id"))
+                : Sort.by(Sort.Order.asc("id")));
+        query.limit(limit);
+
+        return mongoTemplate.find(query, RoomEntity.class);
+    }
+
+    @Override
+    public boolean addViewer(String roomId, String userId) {
+        Query presence = Query.query(Criteria.where("id").is(RoomPresenceEntity.key(roomId, userId)));
+        Update update = new Update()
+                .setOnInsert("roomId", roomId)
+                .setOnInsert("userId", userId)
+                .setOnInsert("joinedAt", LocalDateTime.now());
+
+        // Only a fresh insert counts; re-joining leaves the counter untouched
+        UpdateResult result = mongoTemplate.upsert(presence, update, RoomPresenceEntity.class);
+        if (result.getUpsertedId() == null) {
+            return false;
+        }
+
+        mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(roomId)),
+                new Update().inc("viewerCount", 1), RoomEntity.class);
+        return true;
+    }
+
+    @Override
+    public boolean removeViewer(String roomId, String userId) {
+        Query presence = Query.query(Criteria.where("id").is(RoomPresenceEntity.key(roomId, userId)));
+        DeleteResult result = mongoTemplate.remove(presence, RoomPresenceEntity.class);
+        if (result.getDeletedCount() == 0) {
+            return false;
+        }
+
+        mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(roomId).and("viewerCount").gt(0)),
+                new Update().inc("viewerCount", -1), RoomEntity.class);
+        return true;
+    }
+
+    @Override
+    public int recountViewers(Predicate<String> roomFilter) {
+        // Presence documents are the truth; viewerCount is a counter derived from them
+        Aggregation perRoom = Aggregation.newAggregation(Aggregation.group("roomId").count().as("count"));
+        Map<String, Integer> counts = new HashMap<>();
+        for (Document row : mongoTemplate.aggregate(perRoom, RoomPresenceEntity.class, Document.class)) {
+            counts.put(row.getString("_id"), ((Number) row.get("count")).intValue());
+        }
+
+        // Each write matches only a wrong counter, so rooms already in sync are left untouched. A join
+        // landing between the aggregate and the write can still be missed; the next pass repairs it
+        BulkOperations corrections = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, RoomEntity.class);
+        int writes = 0;
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            if (roomFilter.test(entry.getKey())) {
+                corrections.updateOne(
+                        Query.query(Criteria.where("id").is(entry.getKey()).and("viewerCount").ne(entry.getValue())),
+                        new Update().set("viewerCount", entry.getValue()));
+                writes++;
+            }
+        }
+        // Rooms left with viewers but no presence at all; the partial index keeps this to occupied rooms
+        Query occupied = Query.query(Criteria.where("viewerCount").gt(0));
+        occupied.fields().include("id");
+        for (RoomEntity room : mongoTemplate.find(occupied, RoomEntity.class)) {
+            if (!counts.containsKey(room.getId()) && roomFilter.test(room.getId())) {
+                corrections.updateOne(
+                        Query.query(Criteria.where("id").is(room.getId()).and("viewerCount").gt(0)),
+                        new Update().set("viewerCount", 0));
+                writes++;
+            }
+        }
+        if (writes == 0) {
+            return 0;
+        }
+        BulkWriteResult result = corrections.execute();
+        return result.getModifiedCount();
+    }
+
+    @Override
+    public boolean claimScheduledStart(String roomId, LocalDateTime scheduledTime) {
+        // Matches only while this schedule is still current and not yet started, so exactly one caller wins
+        Query query = Query.query(Criteria.where("id").is(roomId)
+                .and("scheduledTime").is(scheduledTime)
+                .and("startedScheduleTime").ne(scheduledTime));
+        UpdateResult result = mongoTemplate.updateFirst(query,
+                new Update().set("startedScheduleTime", scheduledTime), RoomEntity.class);
+        return result.getModifiedCount() == 1;
+    }
+}
@@ -2,16 +2,24 @@ package com.cloud.play.CloudPlay.service;
 
 import com.cloud.play.CloudPlay.DTO.RoomDTO;
 import com.cloud.play.CloudPlay.entity.RoomEntity;
-import com.cloud.play.CloudPlay.entity.UserEntity;
 import com.cloud.play.CloudPlay.repository.RoomRepository;
 import com.cloud.play.CloudPlay.repository.UserRepository;
+import com.cloud.play.app.entity.VideoEntity;
+import com.cloud.play.app.pagination.CursorPage;
+import com.cloud.play.app.pagination.PageCursor;
+import com.cloud.play.app.pagination.PageLimits;
+import com.cloud.play.app.service.RoomStartScheduler;
 import com.cloud.play.app.service.VideoService;
+import com.cloud.play.app.trace.RequestTracer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -26,10 +34,40 @@ public class RoomService {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private RoomStartScheduler roomStartScheduler;
+    
+    @Autowired
+    private RequestTracer tracer;
+    
     public List<RoomDTO> getAllRooms() {
-        return roomRepository.findAll().stream()
-            .map(this::convertToDTO)
-            .collect(Collectors.toList());
+        return convertToDTOs(roomRepository.findAll());
+    }
+    
+    public CursorPage<RoomDTO> getRooms(boolean publicOnly, LocalDateTime scheduledFrom, LocalDateTime scheduledTo,
+                                        String cursor, Integer limit) {
+        int pageSize = PageLimits.clamp(limit);
+        boolean bySchedule = scheduledFrom != null || scheduledTo != null;
+        
+        // Ask for one extra row to learn whether another page exists
+        List<RoomEntity> rooms;
+        int span = tracer.begin("rooms.query");
+        try {
+            rooms = roomRepository.findPage(
+                publicOnly, scheduledFrom, scheduledTo, PageCursor.decode(cursor), pageSize + 1);
+        } finally {
+            tracer.end(span);
+        }
+        
+        String nextCursor = null;
+        if (rooms.size() > pageSize) {
+            rooms = rooms.subList(0, pageSize);
+            RoomEntity last = rooms.get(pageSize - 1);
+            String sortValue = bySchedule && last.getScheduledTime() != null ? last.getScheduledTime().toString() : null;
+            nextCursor = new PageCursor(sortValue, last.getId()).encode();
+        }
+        
+        return new CursorPage<>(convertToDTOs(rooms), nextCursor);
     }
     
     public Optional<RoomDTO> getRoomById(String id) {
@@ -45,42 +83,62 @@ public class RoomService {
         room.setPrivate(isPrivate);
         
         RoomEntity savedRoom = roomRepository.save(room);
+        roomStartScheduler.schedule(savedRoom.getId(), savedRoom.getScheduledTime());
         return convertToDTO(savedRoom);
     }
     
     public boolean joinRoom(String roomId, String userId) {
-        Optional<RoomEntity> roomOpt = roomRepository.findById(roomId);
-        Optional<UserEntity> userOpt = userRepository.findById(userId);
-        
-        if (roomOpt.isPresent() && userOpt.isPresent()) {
-            RoomEntity room = roomOpt.get();
-            UserEntity user = userOpt.get();
-            
-            room.addViewer(user);
-            roomRepository.save(room);
-            return true;
+        if (!roomRepository.existsById(roomId) || !userRepository.existsById(userId)) {
+            return false;
         }
         
-        return false;
+        // Atomic presence upsert plus counter bump; the viewer list is never loaded
+        roomRepository.addViewer(roomId, userId);
+        return true;
     }
     
     public boolean leaveRoom(String roomId, String userId) {
-        Optional<RoomEntity> roomOpt = roomRepository.findById(roomId);
-        Optional<UserEntity> userOpt = userRepository.findById(userId);
+        if (!roomRepository.existsById(roomId) || !userRepository.existsById(userId)) {
+            return false;
+        }
         
-        if (roomOpt.isPresent() && userOpt.isPresent()) {
-            RoomEntity room = roomOpt.get();
-            UserEntity user = userOpt.get();
-            
-            room.removeViewer(user);
-            roomRepository.save(room);
-            return true;
+        roomRepository.removeViewer(roomId, userId);
+        return true;
+    }
+    
+    private List<RoomDTO> convertToDTOs(List<RoomEntity> rooms) {
+        // Fetch every referenced video in one batch instead of one lookup per room
+        Set<String> videoIds = rooms.stream()
+            .map(RoomEntity::getCurrentVideoId)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet());
+        Map<String, VideoEntity> videos;
+        int span = tracer.begin("videos.batch");
+        try {
+            videos = videoService.getVideosByIds(videoIds);
+        } finally {
+            tracer.end(span);
         }
         
-        return false;
+        span = tracer.begin("dto.convert");
+        try {
+            return rooms.stream()
+                .map(room -> convertToDTO(room, room.getCurrentVideoId() != null ? videos.get(room.getCurrentVideoId()) : null))
+                .collect(Collectors.toList());
+        } finally {
+            tracer.end(span);
+        }
     }
     
     private RoomDTO convertToDTO(RoomEntity room) {
+        VideoEntity video = null;
+        if (room.getCurrentVideoId() != null) {
+            video = videoService.getVideoById(room.getCurrentVideoId()).orElse(null);
+        }
+        return convertToDTO(room, video);
+    }
+    
+    private RoomDTO convertToDTO(RoomEntity room, VideoEntity video) {
         RoomDTO dto = new RoomDTO();
         dto.setId(room.getId());
         dto.setName(room.getName());
@@ -89,9 +147,8 @@ public class RoomService {
         dto.setScheduledTime(room.getScheduledTime());
         
         // Set current video if exists
-        if (room.getCurrentVideoId() != null) {
-            videoService.getVideoById(room.getCurrentVideoId())
-                .ifPresent(video -> dto.setCurrentVideo(videoService.convertToDTO(video)));
+        if (video != null) {
+            dto.setCurrentVideo(videoService.convertToDTO(video));
         }
         
         return dto;
@@ -9,6 +9,11 @@ public class VideoDTO {
     private String cloudinaryUrl;
     private String thumbnailUrl;
     private int duration;
+    private int width;
+    private int height;
+    private String videoCodec;
+    private long bitrate;
+    private String hlsManifestUrl;
     private LocalDateTime createdAt;
     
     // Constructors
@@ -63,6 +68,46 @@ public class VideoDTO {
         this.duration = duration;
     }
     
+    public int getWidth() {
+        return width;
+    }
+    
+    public void setWidth(int width) {
+        this.width = width;
+    }
+    
+    public int getHeight() {
+        return height;
+    }
+    
+    public void setHeight(int height) {
+        this.height = height;
+    }
+    
+    public String getVideoCodec() {
+        return videoCodec;
+    }
+    
+    public void setVideoCodec(String videoCodec) {
+        this.videoCodec = videoCodec;
+    }
+    
+    public long getBitrate() {
+        return bitrate;
+    }
+    
+    public void setBitrate(long bitrate) {
+        this.bitrate = bitrate;
+    }
+    
+    public String getHlsManifestUrl() {
+        return hlsManifestUrl;
+    }
+    
+    public void setHlsManifestUrl(String hlsManifestUrl) {
+        this.hlsManifestUrl = hlsManifestUrl;
+    }
+    
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
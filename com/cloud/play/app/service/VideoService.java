@@ -1,49 +1,214 @@
 
 package com.cloud.play.app.service;
 
+import com.cloud.play.app.cache.BoundedTtlCache;
+import com.cloud.play.app.cache.CacheStats;
 import com.cloud.play.app.dto.VideoDTO;
 import com.cloud.play.app.entity.VideoEntity;
+import com.cloud.play.app.media.MediaInfo;
+import com.cloud.play.app.media.MediaProbe;
+import com.cloud.play.app.media.ProbingInputStream;
+import com.cloud.play.app.pagination.CursorPage;
+import com.cloud.play.app.pagination.PageCursor;
+import com.cloud.play.app.pagination.PageLimits;
 import com.cloud.play.app.repository.VideoRepository;
-import com.cloudinary.Cloudinary;
-import com.cloudinary.utils.ObjectUtils;
+import com.cloud.play.app.storage.StoredVideo;
+import com.cloud.play.app.storage.VideoStorage;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Service
 public class VideoService {
 
     @Autowired
-    private Cloudinary cloudinary;
+    private VideoStorage videoStorage;
     
     @Autowired
     private VideoRepository videoRepository;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    // Videos are effectively immutable after upload, so lookups are served from memory
+    private final BoundedTtlCache<String, VideoEntity> videoCache;
+    
+    // JSON form of each VideoDTO, spliced as a raw value into room messages
+    private final BoundedTtlCache<String, SerializableString> videoJsonCache;
+    
+    public VideoService(
+            @Value("${cloudplay.cache.video.max-size:10000}") int cacheMaxSize,
+            @Value("${cloudplay.cache.video.ttl-seconds:300}") long cacheTtlSeconds) {
+        this.videoCache = new BoundedTtlCache<>(cacheMaxSize, cacheTtlSeconds * 1000);
+        this.videoJsonCache = new BoundedTtlCache<>(cacheMaxSize, cacheTtlSeconds * 1000);
+    }
 
-    public String uploadVideo(MultipartFile file) throws IOException {
-        Map uploadResult = cloudinary.uploader().upload(file.getBytes(),
-                ObjectUtils.asMap("resource_type", "video"));
-
-        return uploadResult.get("secure_url").toString(); // Returns Cloudinary URL
+    public StoredVideo uploadVideo(MultipartFile file) throws IOException {
+        // The multipart body is already spooled to disk by the container; stream it from there
+        return storeVideo(file.getInputStream(), file.getOriginalFilename(), file.getSize());
+    }
+    
+    public StoredVideo storeVideo(InputStream content, String originalFilename, long contentLength) throws IOException {
+        // Probe container headers as the bytes stream to storage, so metadata costs no extra pass
+        MediaProbe probe = new MediaProbe();
+        String backend = videoStorage.getClass().getSimpleName();
+        long started = System.nanoTime();
+        StoredVideo stored;
+        try {
+            stored = videoStorage.store(new ProbingInputStream(content, probe), originalFilename, contentLength);
+        } catch (IOException | RuntimeException e) {
+            recordStore(backend, e.getClass().getSimpleName(), System.nanoTime() - started);
+            throw e;
+        }
+        long elapsedNanos = System.nanoTime() - started;
+        recordStore(backend, "none", elapsedNanos);
+        
+        // Bytes stored over time gives bytes/s for the backend; the summary shows per-upload speed
+        meterRegistry.counter("cloudplay.upload.bytes", "backend", backend).increment(stored.getSizeBytes());
+        if (elapsedNanos > 0) {
+            DistributionSummary.builder("cloudplay.upload.throughput")
+                .baseUnit("bytes/s")
+                .tag("backend", backend)
+                .register(meterRegistry)
+                .record(stored.getSizeBytes() * 1e9 / elapsedNanos);
+        }
+        return stored.withMediaInfo(probeResult(probe));
+    }
+    
+    // Metadata is best effort: a malformed container must not fail an upload that is already stored
+    private static MediaInfo probeResult(MediaProbe probe) {
+        try {
+            return probe.result().orElse(null);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+    
+    // Storage latency includes reading the source stream, which for Cloudinary is the chunked upload
+    private void recordStore(String backend, String exception, long elapsedNanos) {
+        Timer.builder("cloudplay.storage.store")
+            .tag("backend", backend)
+            .tag("outcome", "none".equals(exception) ? "success" : "failure")
+            .tag("exception", exception)
+            .register(meterRegistry)
+            .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+    
+    public VideoEntity publishVideo(StoredVideo stored, String title, String description) {
+        // Create video entity with metadata
+        VideoEntity video = new VideoEntity();
+        video.setTitle(title);
+        video.setDescription(description);
+        video.setCloudinaryUrl(stored.getUrl());
+        video.setStorageKey(stored.getStorageKey());
+        
+        // Locally stored videos are played back through the range-serving stream endpoint
+        if (videoStorage.localFile(stored.getStorageKey()).isPresent()) {
+            video.setId(new ObjectId().toHexString());
+            video.setCloudinaryUrl("/api/videos/" + video.getId() + "/stream");
+            // No frame extraction for local storage; the URL rewrite below would just point at the video
+            video.setThumbnailUrl(null);
+        } else {
+            // Cloudinary derives a thumbnail frame from transformation parameters in the URL
+            video.setThumbnailUrl(video.getCloudinaryUrl().replace("video/upload", "video/upload/so_auto,w_400,h_225,c_fill"));
+        }
+        
+        // Fill in duration and stream details probed from the container headers
+        MediaInfo mediaInfo = stored.getMediaInfo();
+        if (mediaInfo != null) {
+            video.setDuration((int) Math.ceil(mediaInfo.getDurationSeconds()));
+            video.setWidth(mediaInfo.getWidth());
+            video.setHeight(mediaInfo.getHeight());
+            video.setVideoCodec(mediaInfo.getVideoCodec());
+            video.setBitrate(mediaInfo.getBitrate());
+        }
+        
+        video.setCreatedAt(LocalDateTime.now());
+        
+        return saveVideo(video);
     }
     
     public VideoEntity saveVideo(VideoEntity video) {
-        return videoRepository.save(video);
+        VideoEntity saved = videoRepository.save(video);
+        videoCache.invalidate(saved.getId());
+        videoJsonCache.invalidate(saved.getId());
+        return saved;
     }
     
-    public List<VideoDTO> getAllVideos() {
-        return videoRepository.findAll().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    public Optional<SerializableString> getSerializedDTO(String videoId) {
+        return videoJsonCache.get(videoId, id -> getVideoById(id).map(video -> {
+            try {
+                // SerializedString also caches its UTF-8 bytes, so later writes are a plain copy
+                return new SerializedString(objectMapper.writeValueAsString(convertToDTO(video)));
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException(e);
+            }
+        }));
+    }
+    
+    public CursorPage<VideoDTO> getVideos(LocalDateTime createdFrom, LocalDateTime createdTo, String cursor, Integer limit) {
+        int pageSize = PageLimits.clamp(limit);
+        
+        // Ask for one extra row to learn whether another page exists
+        List<VideoEntity> videos = videoRepository.findPage(createdFrom, createdTo, PageCursor.decode(cursor), pageSize + 1);
+        
+        String nextCursor = null;
+        if (videos.size() > pageSize) {
+            videos = videos.subList(0, pageSize);
+            VideoEntity last = videos.get(pageSize - 1);
+            nextCursor = new PageCursor(last.getCreatedAt().toString(), last.getId()).encode();
+        }
+        
+        return new CursorPage<>(videos.stream().map(this::convertToDTO).collect(Collectors.toList()), nextCursor);
     }
     
     public Optional<VideoEntity> getVideoById(String id) {
-        return videoRepository.findById(id);
+        // Callers edit and save what they get back, so never hand out the cached instance itself
+        return videoCache.get(id, videoRepository::findById).map(VideoEntity::copy);
+    }
+    
+    public Map<String, VideoEntity> getVideosByIds(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        // One findAllById round-trip for every id the cache doesn't already hold
+        Map<String, VideoEntity> cached = videoCache.getAll(ids, missing -> videoRepository.findAllById(missing).stream()
+                .collect(Collectors.toMap(VideoEntity::getId, Function.identity())));
+        return cached.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().copy()));
+    }
+    
+    public CacheStats getVideoCacheStats() {
+        return videoCache.stats();
+    }
+    
+    public Optional<Path> getLocalFile(VideoEntity video) {
+        return videoStorage.localFile(video.getStorageKey());
     }
     
     public VideoDTO convertToDTO(VideoEntity video) {
@@ -58,6 +223,11 @@ public class VideoService {
         dto.setCloudinaryUrl(video.getCloudinaryUrl());
         dto.setThumbnailUrl(video.getThumbnailUrl());
         dto.setDuration(video.getDuration());
+        dto.setWidth(video.getWidth());
+        dto.setHeight(video.getHeight());
+        dto.setVideoCodec(video.getVideoCodec());
+        dto.setBitrate(video.getBitrate());
+        dto.setHlsManifestUrl("READY".equals(video.getHlsStatus()) ? video.getHlsManifestUrl() : null);
         dto.setCreatedAt(video.getCreatedAt());
         return dto;
     }
@@ -2,7 +2,7 @@ import React, { useState, useRef } from 'react';
 import { Button } from "@/components/ui/button";
 import { Input } from "@/components/ui/input";
 import { Label } from "@/components/ui/label";
-import { uploadVideo } from '@/services/apiService';
+import { waitForUploadJob } from '@/services/apiService';
 import { Video, FileVideo, Upload } from 'lucide-react';
 import { toast } from "@/components/ui/use-toast";
 
@@ -120,13 +120,17 @@ const VideoUpload: React.FC<VideoUploadProps> = ({ onUploadSuccess, onUploadStar
       });
 
       clearInterval(simulateProgress);
-      setUploadProgress(100);
 
       if (!response.ok) {
         throw new Error(`Video upload failed: ${response.statusText}`);
       }
 
-      const uploadedVideo = await response.json();
+      // The server accepts the upload as a job; poll until the video is published
+      const job = await response.json();
+      const uploadedVideo = await waitForUploadJob(job.id, (update) => {
+        setUploadProgress(Math.max(95, update.progress));
+      });
+      setUploadProgress(100);
 
       setFile(null);
       setTitle('');
@@ -0,0 +1,93 @@
+package com.cloud.play.bench;
+
+import com.cloud.play.CloudPlay.entity.RoomEntity;
+import com.cloud.play.app.entity.VideoEntity;
+import org.bson.types.ObjectId;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic data set shaped like production: 100k videos with full probe metadata and 10k
+ * rooms, a fifth of them scheduled, with a long-tailed viewer distribution (a few rooms in the
+ * tens of thousands).
+ */
+final class BenchData {
+
+    static final int VIDEO_COUNT = 100_000;
+    static final int ROOM_COUNT = 10_000;
+
+    final Map<String, VideoEntity> videos = new HashMap<>();
+    final List<VideoEntity> videoList = new ArrayList<>();
+    final Map<String, RoomEntity> rooms = new HashMap<>();
+    final List<RoomEntity> roomsById = new ArrayList<>();
+
+    BenchData(long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+        for (int i = 0; i < VIDEO_COUNT; i++) {
+            VideoEntity video = new VideoEntity();
+            video.setId(new ObjectId().toHexString());
+            video.setTitle("Video " + i + " " + words(random, 4));
+            video.setDescription(words(random, 20 + random.nextInt(40)));
+            video.setCloudinaryUrl("https://res.cloudinary.com/demo/video/upload/v1/cloudplay/" + video.getId() + ".mp4");
+            video.setThumbnailUrl("https://res.cloudinary.com/demo/video/upload/v1/cloudplay/" + video.getId() + ".jpg");
+            video.setDuration(60 + random.nextInt(7200));
+            video.setWidth(1920);
+            video.setHeight(1080);
+            video.setVideoCodec("avc1.640028");
+            video.setBitrate(2_000_000L + random.nextInt(6_000_000));
+            if (random.nextInt(4) != 0) {
+                video.setHlsStatus("READY");
+                video.setHlsManifestUrl("/api/videos/" + video.getId() + "/hls/master.m3u8");
+            }
+            video.setCreatedAt(base.plusMinutes(i));
+            videos.put(video.getId(), video);
+            videoList.add(video);
+        }
+
+        for (int i = 0; i < ROOM_COUNT; i++) {
+            RoomEntity room = new RoomEntity();
+            room.setId(new ObjectId().toHexString());
+            room.setName("Room " + i + " " + words(random, 2));
+            room.setPrivate(random.nextInt(5) == 0);
+            room.setCurrentVideoId(videoList.get(random.nextInt(VIDEO_COUNT)).getId());
+            if (random.nextInt(5) == 0) {
+                room.setScheduledTime(base.plusDays(30).plusMinutes(random.nextInt(100_000)));
+            }
+            // Pareto-ish: most rooms are small, a handful are huge live events
+            room.setViewerCount((int) Math.min(50_000, Math.pow(random.nextDouble(), -1.5)));
+            rooms.put(room.getId(), room);
+            roomsById.add(room);
+        }
+        roomsById.sort(Comparator.comparing(RoomEntity::getId));
+    }
+
+    RoomEntity room(int index) {
+        return roomsById.get(Math.floorMod(index, roomsById.size()));
+    }
+
+    VideoEntity video(int index) {
+        return videoList.get(Math.floorMod(index, videoList.size()));
+    }
+
+    private static String words(SplittableRandom random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            int length = 3 + random.nextInt(8);
+            for (int c = 0; c < length; c++) {
+                text.append((char) ('a' + random.nextInt(26)));
+            }
+        }
+        return text.toString();
+    }
+}
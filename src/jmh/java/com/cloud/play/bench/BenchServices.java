@@ -0,0 +1,69 @@
+package com.cloud.play.bench;
+
+import com.cloud.play.CloudPlay.service.RoomService;
+import com.cloud.play.app.service.PlaybackService;
+import com.cloud.play.app.service.RoomSyncService;
+import com.cloud.play.app.service.VideoService;
+import com.cloud.play.app.trace.RequestTracer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.lang.reflect.Field;
+
+/**
+ * The services under test wired by hand against {@link InMemoryRepositories}, the same way Spring
+ * would fill their {@code @Autowired} fields, so benchmarks measure service code rather than
+ * context startup or Mongo round-trips.
+ */
+final class BenchServices {
+
+    final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    final VideoService videoService;
+    final RoomService roomService;
+    final PlaybackService playbackService;
+    final RoomSyncService roomSyncService;
+
+    /**
+     * @param cacheSize entries kept by the video and room caches; 0 disables caching so every
+     *                  call goes through conversion
+     */
+    BenchServices(BenchData data, int cacheSize) {
+        long ttlSeconds = cacheSize > 0 ? 3600 : 0;
+
+        videoService = new VideoService(cacheSize, ttlSeconds);
+        inject(videoService, "videoRepository", InMemoryRepositories.videos(data.videos));
+        inject(videoService, "objectMapper", objectMapper);
+
+        roomService = new RoomService();
+        inject(roomService, "roomRepository", InMemoryRepositories.rooms(data.rooms, data.roomsById));
+        inject(roomService, "userRepository", InMemoryRepositories.users());
+        inject(roomService, "videoService", videoService);
+        inject(roomService, "tracer", new RequestTracer());
+
+        playbackService = new PlaybackService();
+        inject(playbackService, "roomRepository", InMemoryRepositories.rooms(data.rooms, data.roomsById));
+        inject(playbackService, "idleMinutes", 720L);
+
+        roomSyncService = new RoomSyncService(cacheSize, ttlSeconds);
+        inject(roomSyncService, "roomService", roomService);
+        inject(roomSyncService, "videoService", videoService);
+        inject(roomSyncService, "playbackService", playbackService);
+        inject(roomSyncService, "objectMapper", objectMapper);
+        inject(roomSyncService, "tracer", new RequestTracer());
+        inject(roomSyncService, "deltaLogSize", 64);
+        inject(roomSyncService, "idleMinutes", 720L);
+    }
+
+    private static void inject(Object target, String fieldName, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot wire " + target.getClass().getSimpleName() + "." + fieldName, e);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.cloud.play.bench;
+
+import com.cloud.play.CloudPlay.DTO.RoomDTO;
+import com.cloud.play.app.dto.VideoDTO;
+import com.cloud.play.app.pagination.CursorPage;
+import com.cloud.play.app.pagination.PageCursor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO conversion on the two hot read paths: single videos, and a full page of the room
+ * listing with its batched video lookup. {@code cacheSize=0} measures the cold path where every
+ * video is fetched from the repository stand-in and converted again.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class DtoConversionBenchmark {
+
+    @Param({"0", "10000"})
+    public int cacheSize;
+
+    @Param({"20", "100"})
+    public int pageSize;
+
+    private BenchData data;
+    private BenchServices services;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        data = new BenchData(42);
+        services = new BenchServices(data, cacheSize);
+    }
+
+    @Benchmark
+    public VideoDTO convertVideo() {
+        return services.videoService.convertToDTO(data.video(cursor++));
+    }
+
+    @Benchmark
+    public CursorPage<RoomDTO> listRoomsPage() {
+        // Start each page at a different room so the whole listing gets touched across iterations
+        String after = new PageCursor(null, data.room(cursor += 97).getId()).encode();
+        return services.roomService.getRooms(false, null, null, after, pageSize);
+    }
+
+    @Benchmark
+    public List<RoomDTO> listAllRooms() {
+        return services.roomService.getAllRooms();
+    }
+}
@@ -0,0 +1,89 @@
+package com.cloud.play.bench;
+
+import com.cloud.play.CloudPlay.entity.RoomEntity;
+import com.cloud.play.CloudPlay.repository.RoomRepository;
+import com.cloud.play.CloudPlay.repository.UserRepository;
+import com.cloud.play.app.entity.VideoEntity;
+import com.cloud.play.app.pagination.PageCursor;
+import com.cloud.play.app.repository.VideoRepository;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Map-backed stand-ins for the Mongo repositories, built as dynamic proxies that answer only the
+ * calls the benchmarked services make. Anything else fails loudly so a benchmark never silently
+ * measures an unimplemented path.
+ */
+final class InMemoryRepositories {
+
+    private InMemoryRepositories() {
+    }
+
+    static RoomRepository rooms(Map<String, RoomEntity> byId, List<RoomEntity> inIdOrder) {
+        return proxy(RoomRepository.class, (method, args) -> switch (method) {
+            case "findById" -> Optional.ofNullable(byId.get((String) args[0]));
+            case "existsById" -> byId.containsKey((String) args[0]);
+            case "findAll" -> inIdOrder;
+            case "findPage" -> page(inIdOrder, (PageCursor) args[3], (Integer) args[4]);
+            default -> throw new UnsupportedOperationException(method);
+        });
+    }
+
+    static VideoRepository videos(Map<String, VideoEntity> byId) {
+        return proxy(VideoRepository.class, (method, args) -> switch (method) {
+            case "findById" -> Optional.ofNullable(byId.get((String) args[0]));
+            case "findAllById" -> {
+                List<VideoEntity> found = new ArrayList<>();
+                for (Object id : (Iterable<?>) args[0]) {
+                    VideoEntity video = byId.get((String) id);
+                    if (video != null) {
+                        found.add(video);
+                    }
+                }
+                yield found;
+            }
+            default -> throw new UnsupportedOperationException(method);
+        });
+    }
+
+    static UserRepository users() {
+        return proxy(UserRepository.class, (method, args) -> switch (method) {
+            case "existsById" -> true;
+            default -> throw new UnsupportedOperationException(method);
+        });
+    }
+
+    private static List<RoomEntity> page(List<RoomEntity> inIdOrder, PageCursor after, int limit) {
+        int from = 0;
+        if (after != null) {
+            int found = Collections.binarySearch(inIdOrder, null,
+                    (room, ignored) -> room.getId().compareTo(after.getId()));
+            from = found >= 0 ? found + 1 : -found - 1;
+        }
+        return inIdOrder.subList(from, Math.min(inIdOrder.size(), from + limit));
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object handle(String method, Object[] args);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> type.getSimpleName() + "(in-memory)";
+                };
+            }
+            return handler.handle(method.getName(), args);
+        });
+    }
+}
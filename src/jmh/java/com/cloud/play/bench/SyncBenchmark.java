@@ -0,0 +1,80 @@
+package com.cloud.play.bench;
+
+import com.cloud.play.CloudPlay.DTO.RoomDTO;
+import com.cloud.play.app.dto.PlaybackDelta;
+import com.cloud.play.app.dto.ScheduleMessage;
+import com.cloud.play.app.dto.VideoDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of answering a SYNC: the streamed {@code RoomSyncService.encodeSync} against the old shape,
+ * which looked the room up, built a ScheduleMessage and ran it through the ObjectMapper. Run with
+ * several threads, as a burst of joins after a scheduled start would.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@Threads(4)
+public class SyncBenchmark {
+
+    @Param({"0", "10000"})
+    public int cacheSize;
+
+    private BenchData data;
+    private BenchServices services;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        data = new BenchData(42);
+        services = new BenchServices(data, cacheSize);
+        // Give a slice of rooms a running clock so the playback block is realistic
+        for (int i = 0; i < BenchData.ROOM_COUNT; i += 4) {
+            services.playbackService.start(data.room(i).getId());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        String nextRoomId(BenchData data) {
+            // Stride through rooms so the cache sees the same mix a busy node would
+            next += 7919;
+            return data.room(next).getId();
+        }
+    }
+
+    @Benchmark
+    public byte[] encodeSync(Cursor cursor) {
+        return services.roomSyncService.encodeSync(cursor.nextRoomId(data));
+    }
+
+    @Benchmark
+    public String objectMapperSync(Cursor cursor) throws JsonProcessingException {
+        String roomId = cursor.nextRoomId(data);
+        RoomDTO room = services.roomService.getRoomById(roomId).orElseThrow();
+        VideoDTO video = room.getCurrentVideo();
+        String scheduledTime = room.getScheduledTime() != null ? room.getScheduledTime().toString() : null;
+        ScheduleMessage message = new ScheduleMessage("SYNC", roomId, video, scheduledTime);
+        message.setPlayback(PlaybackDelta.from(services.playbackService.getState(roomId)));
+        return services.objectMapper.writeValueAsString(message);
+    }
+}
@@ -9,9 +9,35 @@ export interface Video {
   cloudinaryUrl: string;
   thumbnailUrl?: string;
   duration: number;
+  width?: number;
+  height?: number;
+  videoCodec?: string;
+  bitrate?: number;
+  hlsManifestUrl?: string;
   createdAt: string;
 }
 
+// Asynchronous upload job returned by /api/videos/upload
+export interface UploadJob {
+  id: string;
+  status: 'SPOOLING' | 'QUEUED' | 'RUNNING' | 'COMPLETED' | 'FAILED';
+  title: string;
+  totalBytes: number;
+  bytesProcessed: number;
+  progress: number;
+  videoId?: string;
+  error?: string;
+  createdAt: string;
+  updatedAt: string;
+}
+
+// Keyset-paginated listing returned by /api/rooms and /api/videos
+export interface CursorPage<T> {
+  items: T[];
+  nextCursor: string | null;
+  hasMore: boolean;
+}
+
 // User data
 export interface User {
   id: string;
@@ -0,0 +1,61 @@
+package com.cloud.play.loadtest;
+
+import com.cloud.play.app.CloudPlayApplication;
+import com.cloud.play.app.entity.VideoEntity;
+import com.cloud.play.app.service.VideoService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+/**
+ * The application started in this JVM on a random port. Mongo comes from the embedded Mongo
+ * auto-configuration, and storage is switched to the local backend so nothing reaches
+ * Cloudinary; the seeded video only carries stub URLs.
+ */
+class EmbeddedNode implements AutoCloseable {
+
+    private final ConfigurableApplicationContext context;
+    private final Path storageDir;
+
+    EmbeddedNode() throws Exception {
+        storageDir = Files.createTempDirectory("cloudplay-loadtest");
+        context = new SpringApplicationBuilder(CloudPlayApplication.class)
+                .properties(
+                        "server.port=0",
+                        "de.flapdoodle.mongodb.embedded.version=6.0.5",
+                        "cloudplay.storage.type=local",
+                        "cloudplay.storage.local.base-dir=" + storageDir)
+                .run();
+    }
+
+    String baseUrl() {
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        return "http://localhost:" + port;
+    }
+
+    // A video for every room, so SYNC replies carry a realistic video payload
+    String seedVideo() {
+        VideoEntity video = new VideoEntity();
+        video.setTitle("Load test feature");
+        video.setDescription("Stub video seeded by the load harness");
+        video.setCloudinaryUrl("https://res.cloudinary.com/stub/video/upload/loadtest.mp4");
+        video.setThumbnailUrl("https://res.cloudinary.com/stub/video/upload/loadtest.jpg");
+        video.setStorageKey("loadtest.mp4");
+        video.setDuration(5400);
+        video.setWidth(1920);
+        video.setHeight(1080);
+        video.setVideoCodec("avc1.640028");
+        video.setBitrate(5_000_000L);
+        video.setCreatedAt(LocalDateTime.now());
+        return context.getBean(VideoService.class).saveVideo(video).getId();
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
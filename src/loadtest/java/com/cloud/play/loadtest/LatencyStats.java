@@ -0,0 +1,65 @@
+package com.cloud.play.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies recorded from many client threads. Each ramp step reads an interval histogram;
+ * everything also accumulates into a whole-run histogram for the final report.
+ */
+class LatencyStats {
+
+    private static final long MAX_TRACKABLE_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private final String name;
+    private final Recorder recorder = new Recorder(MAX_TRACKABLE_NANOS, 3);
+    private final Histogram total = new Histogram(MAX_TRACKABLE_NANOS, 3);
+    private final LongAdder overflows = new LongAdder();
+    private Histogram interval;
+
+    LatencyStats(String name) {
+        this.name = name;
+    }
+
+    void record(long nanos) {
+        if (nanos > MAX_TRACKABLE_NANOS) {
+            overflows.increment();
+            nanos = MAX_TRACKABLE_NANOS;
+        }
+        recorder.recordValue(Math.max(0, nanos));
+    }
+
+    // Swaps the live recorder out and folds the finished interval into the total
+    synchronized Histogram nextInterval() {
+        interval = recorder.getIntervalHistogram(interval);
+        total.add(interval);
+        return interval;
+    }
+
+    synchronized Histogram total() {
+        return total.copy();
+    }
+
+    long overflows() {
+        return overflows.sum();
+    }
+
+    String summary(Histogram histogram) {
+        return String.format("%s n=%d p50=%.1fms p99=%.1fms p999=%.1fms max=%.1fms", name,
+                histogram.getTotalCount(), millis(histogram, 50), millis(histogram, 99),
+                millis(histogram, 99.9), histogram.getMaxValue() / 1e6);
+    }
+
+    void printDistribution(PrintStream out) {
+        // Values are in nanoseconds; scale the output to milliseconds
+        total().outputPercentileDistribution(out, 1e6);
+    }
+
+    static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1e6;
+    }
+}
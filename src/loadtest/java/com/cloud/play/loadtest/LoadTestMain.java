@@ -0,0 +1,229 @@
+package com.cloud.play.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.springframework.messaging.converter.ByteArrayMessageConverter;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ramps STOMP viewers against one node in steps of {@code --step} until {@code --viewers} are
+ * connected, spread evenly over {@code --rooms} rooms. In each room one viewer drives seeks at
+ * {@code --seek-rate} per second and every viewer re-syncs every {@code --resync-seconds}.
+ * After each step settles the harness measures a window of {@code --step-seconds} and reports
+ * seek-to-delivery latency and SYNC round-trip; the last step whose broadcast p99 stayed under
+ * {@code --slo-p99-ms} without lost sessions is the node's sustainable viewer count.
+ *
+ * <p>In embedded mode the clients share the JVM with the server, which understates capacity;
+ * point {@code --url} at a separately started node for sizing numbers.
+ */
+public class LoadTestMain {
+
+    private static final PrintStream out = System.out;
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        EmbeddedNode node = options.url == null ? new EmbeddedNode() : null;
+        try {
+            String baseUrl = node != null ? node.baseUrl() : options.url;
+            String videoId = node != null ? node.seedVideo() : null;
+            new LoadTestMain(options, baseUrl).run(videoId);
+        } finally {
+            if (node != null) {
+                node.close();
+            }
+        }
+    }
+
+    private final LoadTestOptions options;
+    private final String baseUrl;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    private final LatencyStats broadcastLatency = new LatencyStats("broadcast");
+    private final LatencyStats syncLatency = new LatencyStats("sync");
+    private final ViewerClient.Counters counters = new ViewerClient.Counters();
+
+    private final Map<String, List<ViewerClient>> viewersByRoom = new HashMap<>();
+    private final Map<String, SeekTokens> tokensByRoom = new HashMap<>();
+
+    private LoadTestMain(LoadTestOptions options, String baseUrl) {
+        this.options = options;
+        this.baseUrl = baseUrl;
+    }
+
+    private void run(String videoId) throws Exception {
+        List<String> roomIds = createRooms(videoId);
+
+        ThreadPoolTaskScheduler heartbeats = new ThreadPoolTaskScheduler();
+        heartbeats.setThreadNamePrefix("stomp-heartbeat-");
+        heartbeats.initialize();
+        WebSocketStompClient stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        stompClient.setMessageConverter(new ByteArrayMessageConverter());
+        stompClient.setTaskScheduler(heartbeats);
+        // The /ws endpoint is registered with SockJS, which also accepts plain WebSocket here
+        String wsUrl = baseUrl.replaceFirst("^http", "ws") + "/ws/websocket";
+
+        ScheduledExecutorService traffic = Executors.newScheduledThreadPool(
+                Math.max(2, Runtime.getRuntime().availableProcessors() / 2));
+        long seekPeriodMicros = (long) (1_000_000 / options.seeksPerRoomPerSecond);
+        for (String roomId : roomIds) {
+            traffic.scheduleAtFixedRate(() -> driveRoom(roomId), seekPeriodMicros, seekPeriodMicros, TimeUnit.MICROSECONDS);
+        }
+
+        out.printf("Target %s: %d rooms, up to %d viewers in steps of %d%n",
+                baseUrl, roomIds.size(), options.viewers, options.step);
+
+        int connected = 0;
+        int maxSustainable = 0;
+        long lostBefore = 0;
+        long failuresBefore = 0;
+        try {
+            while (connected < options.viewers) {
+                int target = Math.min(options.viewers, connected + options.step);
+                List<CompletableFuture<StompSession>> pending = new ArrayList<>();
+                for (; connected < target; connected++) {
+                    String roomId = roomIds.get(connected % roomIds.size());
+                    ViewerClient viewer = new ViewerClient(roomId, tokensByRoom.get(roomId), objectMapper,
+                            broadcastLatency, syncLatency, counters);
+                    synchronized (viewersByRoom) {
+                        viewersByRoom.get(roomId).add(viewer);
+                    }
+                    pending.add(stompClient.connectAsync(wsUrl, viewer));
+                    long resyncMillis = TimeUnit.SECONDS.toMillis(options.resyncSeconds);
+                    traffic.scheduleAtFixedRate(viewer::sync,
+                            ThreadLocalRandom.current().nextLong(resyncMillis), resyncMillis, TimeUnit.MILLISECONDS);
+                }
+                awaitConnects(pending);
+
+                // Measure the settled step, not the connection burst that led into it
+                broadcastLatency.nextInterval();
+                syncLatency.nextInterval();
+                long deltasBefore = counters.deltas.sum();
+                Thread.sleep(TimeUnit.SECONDS.toMillis(options.stepSeconds));
+                Histogram broadcast = broadcastLatency.nextInterval();
+                Histogram sync = syncLatency.nextInterval();
+
+                long lost = counters.lost.sum();
+                long failures = counters.connectFailures.sum();
+                boolean healthy = lost == lostBefore && failures == failuresBefore;
+                boolean withinSlo = broadcast.getTotalCount() > 0
+                        && LatencyStats.millis(broadcast, 99) <= options.sloP99Millis;
+                out.printf("viewers=%d connected=%d lost=%d failed=%d deltas/s=%d | %s | %s | %s%n",
+                        target, counters.connected.sum(), lost, failures,
+                        (counters.deltas.sum() - deltasBefore) / options.stepSeconds,
+                        broadcastLatency.summary(broadcast), syncLatency.summary(sync),
+                        healthy && withinSlo ? "OK" : "OVER");
+                lostBefore = lost;
+                failuresBefore = failures;
+
+                if (healthy && withinSlo) {
+                    maxSustainable = target;
+                } else if (options.stopOnFailure) {
+                    break;
+                }
+            }
+        } finally {
+            traffic.shutdownNow();
+            synchronized (viewersByRoom) {
+                viewersByRoom.values().forEach(viewers -> viewers.forEach(ViewerClient::disconnect));
+            }
+            stompClient.stop();
+            heartbeats.shutdown();
+        }
+
+        report(maxSustainable);
+    }
+
+    private List<String> createRooms(String videoId) throws Exception {
+        List<String> roomIds = new ArrayList<>();
+        for (int i = 0; i < options.rooms; i++) {
+            Map<String, Object> body = new HashMap<>();
+            body.put("name", "loadtest-" + i);
+            if (videoId != null) {
+                body.put("videoId", videoId);
+            }
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/rooms"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+            HttpResponse<byte[]> response = http.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            // Fail before any viewer connects; a run against rooms that do not exist measures nothing
+            if (response.statusCode() / 100 != 2) {
+                throw new IllegalStateException("POST " + request.uri() + " failed with HTTP "
+                        + response.statusCode() + ": " + new String(response.body(), StandardCharsets.UTF_8));
+            }
+            String roomId = objectMapper.readTree(response.body()).path("id").asText();
+            if (roomId.isEmpty()) {
+                throw new IllegalStateException("POST " + request.uri() + " returned no room id");
+            }
+            roomIds.add(roomId);
+            viewersByRoom.put(roomId, new ArrayList<>());
+            tokensByRoom.put(roomId, new SeekTokens());
+        }
+        return roomIds;
+    }
+
+    private void driveRoom(String roomId) {
+        ViewerClient driver = null;
+        synchronized (viewersByRoom) {
+            // The first live viewer drives, so a lost driver hands over instead of stalling the room
+            for (ViewerClient viewer : viewersByRoom.get(roomId)) {
+                if (viewer.isConnected()) {
+                    driver = viewer;
+                    break;
+                }
+            }
+        }
+        if (driver != null) {
+            driver.seek();
+        }
+    }
+
+    private void awaitConnects(List<CompletableFuture<StompSession>> pending) {
+        for (CompletableFuture<StompSession> future : pending) {
+            try {
+                future.get(30, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                counters.connectFailures.increment();
+            }
+        }
+    }
+
+    private void report(int maxSustainable) throws Exception {
+        out.println();
+        out.println(broadcastLatency.summary(broadcastLatency.total()));
+        out.println(syncLatency.summary(syncLatency.total()));
+        if (broadcastLatency.overflows() > 0) {
+            out.printf("%d broadcast samples exceeded 60s and were clamped%n", broadcastLatency.overflows());
+        }
+        out.printf("Max sustainable viewers per node: %d (broadcast p99 <= %.0fms, no lost sessions)%n",
+                maxSustainable, options.sloP99Millis);
+
+        if (options.histogramFile != null) {
+            try (PrintStream file = new PrintStream(Files.newOutputStream(Path.of(options.histogramFile)))) {
+                broadcastLatency.printDistribution(file);
+            }
+        }
+    }
+}
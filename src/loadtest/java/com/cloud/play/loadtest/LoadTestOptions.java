@@ -0,0 +1,51 @@
+package com.cloud.play.loadtest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Command line settings, given as {@code --key=value}. Without {@code --url} the harness starts
+ * its own node on a random port with embedded Mongo and local storage in place of Cloudinary.
+ */
+public class LoadTestOptions {
+
+    final String url;
+    final int rooms;
+    final int viewers;
+    final int step;
+    final int stepSeconds;
+    final double seeksPerRoomPerSecond;
+    final int resyncSeconds;
+    final double sloP99Millis;
+    final boolean stopOnFailure;
+    final String histogramFile;
+
+    private LoadTestOptions(Map<String, String> values) {
+        url = values.get("url");
+        rooms = Integer.parseInt(values.getOrDefault("rooms", "50"));
+        viewers = Integer.parseInt(values.getOrDefault("viewers", "5000"));
+        step = Integer.parseInt(values.getOrDefault("step", "500"));
+        stepSeconds = Integer.parseInt(values.getOrDefault("step-seconds", "15"));
+        seeksPerRoomPerSecond = Double.parseDouble(values.getOrDefault("seek-rate", "2"));
+        resyncSeconds = Integer.parseInt(values.getOrDefault("resync-seconds", "30"));
+        sloP99Millis = Double.parseDouble(values.getOrDefault("slo-p99-ms", "250"));
+        stopOnFailure = Boolean.parseBoolean(values.getOrDefault("stop-on-failure", "true"));
+        histogramFile = values.get("histogram-file");
+
+        if (rooms < 1 || viewers < rooms || step < 1 || stepSeconds < 1) {
+            throw new IllegalArgumentException("Need rooms >= 1, viewers >= rooms, step >= 1 and step-seconds >= 1");
+        }
+    }
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || arg.indexOf('=') < 0) {
+                throw new IllegalArgumentException("Expected --key=value but got " + arg);
+            }
+            int separator = arg.indexOf('=');
+            values.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return new LoadTestOptions(values);
+    }
+}
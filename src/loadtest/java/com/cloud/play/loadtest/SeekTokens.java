@@ -0,0 +1,35 @@
+package com.cloud.play.loadtest;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Send times for one room's seeks. Each seek targets a unique position, so the position in the
+ * broadcast delta says which command it carries. Coalescing may swallow intermediate seeks;
+ * their slots are simply overwritten once the ring wraps.
+ */
+class SeekTokens {
+
+    // Positions step by one second so they stay valid seek targets for a long video
+    private static final long POSITION_STEP_MS = 1000;
+    private static final int SLOTS = 1024;
+
+    private final AtomicLongArray sentAt = new AtomicLongArray(SLOTS);
+    private final AtomicLong nextToken = new AtomicLong();
+
+    long nextPosition(long nowNanos) {
+        long token = nextToken.incrementAndGet();
+        sentAt.set((int) (token % SLOTS), nowNanos);
+        return token * POSITION_STEP_MS;
+    }
+
+    /** Send time of the seek that produced this position, or -1 if it is not one of ours. */
+    long sentAt(long positionMs) {
+        if (positionMs <= 0 || positionMs % POSITION_STEP_MS != 0) {
+            return -1;
+        }
+        long token = positionMs / POSITION_STEP_MS;
+        long sent = sentAt.get((int) (token % SLOTS));
+        return sent != 0 ? sent : -1;
+    }
+}
@@ -0,0 +1,162 @@
+package com.cloud.play.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One simulated viewer: a STOMP session subscribed to its room's SYNC topic and playback deltas.
+ * A viewer may also be its room's driver, in which case it sends the seeks everyone times.
+ */
+class ViewerClient extends StompSessionHandlerAdapter {
+
+    /** Counters shared by every viewer of a run. */
+    static class Counters {
+        final LongAdder connected = new LongAdder();
+        final LongAdder connectFailures = new LongAdder();
+        final LongAdder lost = new LongAdder();
+        final LongAdder deltas = new LongAdder();
+        final LongAdder syncs = new LongAdder();
+    }
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final String roomId;
+    private final SeekTokens tokens;
+    private final ObjectMapper objectMapper;
+    private final LatencyStats broadcastLatency;
+    private final LatencyStats syncLatency;
+    private final Counters counters;
+
+    // Send time of an unanswered SYNC request, 0 when none is outstanding
+    private final AtomicLong syncSentAt = new AtomicLong();
+    private volatile StompSession session;
+
+    ViewerClient(String roomId, SeekTokens tokens, ObjectMapper objectMapper,
+                 LatencyStats broadcastLatency, LatencyStats syncLatency, Counters counters) {
+        this.roomId = roomId;
+        this.tokens = tokens;
+        this.objectMapper = objectMapper;
+        this.broadcastLatency = broadcastLatency;
+        this.syncLatency = syncLatency;
+        this.counters = counters;
+    }
+
+    boolean isConnected() {
+        StompSession current = session;
+        return current != null && current.isConnected();
+    }
+
+    @Override
+    public void afterConnected(StompSession session, StompHeaders connectedHeaders) {
+        this.session = session;
+        counters.connected.increment();
+        session.subscribe("/topic/room/" + roomId, new JsonHandler() {
+            @Override
+            void onMessage(JsonNode message, long receivedAt) {
+                onRoomMessage(message, receivedAt);
+            }
+        });
+        session.subscribe("/topic/room/" + roomId + "/playback", new JsonHandler() {
+            @Override
+            void onMessage(JsonNode message, long receivedAt) {
+                onPlaybackDelta(message, receivedAt);
+            }
+        });
+        sync();
+    }
+
+    void sync() {
+        StompSession current = session;
+        if (current == null || !current.isConnected()) {
+            return;
+        }
+        syncSentAt.set(System.nanoTime());
+        current.send("/app/room/" + roomId + "/sync", EMPTY);
+    }
+
+    void seek() {
+        StompSession current = session;
+        if (current == null || !current.isConnected()) {
+            return;
+        }
+        long position = tokens.nextPosition(System.nanoTime());
+        StompHeaders headers = new StompHeaders();
+        headers.setDestination("/app/room/" + roomId + "/seek");
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        current.send(headers, ("{\"positionMs\":" + position + "}").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    void disconnect() {
+        StompSession current = session;
+        if (current != null && current.isConnected()) {
+            current.disconnect();
+        }
+    }
+
+    private void onRoomMessage(JsonNode message, long receivedAt) {
+        if (!"SYNC".equals(message.path("type").asText())) {
+            return;
+        }
+        counters.syncs.increment();
+        // SYNC replies go to the whole room topic, so the first one after our request answers it
+        long sentAt = syncSentAt.getAndSet(0);
+        if (sentAt != 0) {
+            syncLatency.record(receivedAt - sentAt);
+        }
+    }
+
+    private void onPlaybackDelta(JsonNode message, long receivedAt) {
+        counters.deltas.increment();
+        long sentAt = tokens.sentAt(message.path("pos").asLong(-1));
+        if (sentAt > 0) {
+            broadcastLatency.record(receivedAt - sentAt);
+        }
+    }
+
+    @Override
+    public void handleException(StompSession session, StompCommand command, StompHeaders headers,
+                                byte[] payload, Throwable exception) {
+        // A malformed frame is counted as lost delivery rather than ending the run
+        counters.lost.increment();
+    }
+
+    @Override
+    public void handleTransportError(StompSession session, Throwable exception) {
+        if (this.session != null && !session.isConnected()) {
+            // Dropped by the server, e.g. evicted as a slow consumer
+            counters.lost.increment();
+        }
+    }
+
+    private abstract class JsonHandler implements StompFrameHandler {
+
+        @Override
+        public Type getPayloadType(StompHeaders headers) {
+            return byte[].class;
+        }
+
+        @Override
+        public void handleFrame(StompHeaders headers, Object payload) {
+            long receivedAt = System.nanoTime();
+            try {
+                onMessage(objectMapper.readTree((byte[]) payload), receivedAt);
+            } catch (IOException e) {
+                counters.lost.increment();
+            }
+        }
+
+        abstract void onMessage(JsonNode message, long receivedAt);
+    }
+}
@@ -3,12 +3,22 @@ package com.cloud.play.app;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
-@SpringBootApplication
+import java.util.Map;
+
+// Rooms live under com.cloud.play.CloudPlay, outside this package, so scan from the common root
+@SpringBootApplication(scanBasePackages = "com.cloud.play")
+@EnableMongoRepositories(basePackages = "com.cloud.play")
 @EnableScheduling
 public class CloudPlayApplication {
     public static void main(String[] args) {
-        SpringApplication.run(CloudPlayApplication.class, args);
+        SpringApplication application = new SpringApplication(CloudPlayApplication.class);
+        // Defaults only; any property source, including the command line, overrides them
+        application.setDefaultProperties(Map.of(
+                "management.endpoints.web.exposure.include", "health,metrics,prometheus",
+                "management.metrics.tags.application", "cloudplay"));
+        application.run(args);
     }
 }
@@ -0,0 +1,270 @@
+package com.cloud.play.app.broker;
+
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Session decorator that owns the outbound queue of one WebSocket session. Sends only enqueue and
+ * return; a writer thread drains the queue. Because the queue is visible here, superseded frames
+ * can be dropped before they are written and a session that stops draining can be evicted.
+ */
+public class BackpressureSession extends WebSocketSessionDecorator {
+
+    public enum Policy {
+        // Superseded playback frames are always dropped; on overflow, queued playback frames go first
+        DROP_STALE,
+        // On overflow, the queue is reduced to the latest frame per destination
+        COLLAPSE,
+        // On overflow, the session is closed
+        DISCONNECT
+    }
+
+    // Playback deltas carry full state, so a newer one for the same subscription makes older ones stale
+    private static final Pattern REPLACEABLE = Pattern.compile("/topic/room/[^/]+/playback");
+
+    private final Policy policy;
+    private final int queueLimit;
+    private final int bufferSizeLimit;
+    private final long sendTimeLimitNanos;
+    private final Executor writer;
+
+    private final Deque<Frame> queue = new ArrayDeque<>();
+    private int bufferedBytes;
+    private boolean flushScheduled;
+    private volatile long flushStartedAt;
+    private volatile boolean evicted;
+    private final AtomicLong dropped = new AtomicLong();
+
+    public BackpressureSession(WebSocketSession delegate, Policy policy, int queueLimit, int bufferSizeLimit,
+                               long sendTimeLimitMillis, Executor writer) {
+        super(delegate);
+        this.policy = policy;
+        this.queueLimit = queueLimit;
+        this.bufferSizeLimit = bufferSizeLimit;
+        this.sendTimeLimitNanos = sendTimeLimitMillis * 1_000_000L;
+        this.writer = writer;
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        if (evicted) {
+            return;
+        }
+        long started = flushStartedAt;
+        if (started != 0 && System.nanoTime() - started > sendTimeLimitNanos) {
+            evict();
+            return;
+        }
+
+        Frame frame = new Frame(message);
+        boolean schedule;
+        synchronized (queue) {
+            if (policy == Policy.DROP_STALE && frame.replaceable) {
+                removeMatching(frame.subscriptionKey);
+            }
+            queue.addLast(frame);
+            bufferedBytes += frame.size;
+            if (overLimit()) {
+                switch (policy) {
+                    case DROP_STALE -> shedReplaceable();
+                    case COLLAPSE -> collapse();
+                    case DISCONNECT -> {
+                    }
+                }
+            }
+            if (overLimit()) {
+                // Nothing left to shed, or the policy is to disconnect
+                queue.clear();
+                bufferedBytes = 0;
+                schedule = false;
+                evicted = true;
+            } else {
+                schedule = !flushScheduled;
+                flushScheduled = true;
+            }
+        }
+
+        if (evicted) {
+            evict();
+        } else if (schedule) {
+            writer.execute(this::flush);
+        }
+    }
+
+    public int getQueueDepth() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    public int getBufferedBytes() {
+        synchronized (queue) {
+            return bufferedBytes;
+        }
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public boolean isEvicted() {
+        return evicted;
+    }
+
+    // Called by the watchdog, so a stalled session is evicted even when nothing new is sent to it
+    void evictIfStalled(long nowNanos) {
+        long started = flushStartedAt;
+        if (!evicted && started != 0 && nowNanos - started > sendTimeLimitNanos) {
+            evict();
+        }
+    }
+
+    private void flush() {
+        while (true) {
+            Frame frame;
+            synchronized (queue) {
+                frame = queue.pollFirst();
+                if (frame == null || evicted) {
+                    flushScheduled = false;
+                    return;
+                }
+                bufferedBytes -= frame.size;
+            }
+            flushStartedAt = System.nanoTime();
+            try {
+                getDelegate().sendMessage(frame.message);
+            } catch (IOException | RuntimeException e) {
+                evict();
+            } finally {
+                flushStartedAt = 0;
+            }
+        }
+    }
+
+    private boolean overLimit() {
+        return queue.size() > queueLimit || bufferedBytes > bufferSizeLimit;
+    }
+
+    private void removeMatching(String subscriptionKey) {
+        Iterator<Frame> it = queue.iterator();
+        while (it.hasNext()) {
+            Frame queued = it.next();
+            if (subscriptionKey.equals(queued.subscriptionKey)) {
+                it.remove();
+                drop(queued);
+            }
+        }
+    }
+
+    private void shedReplaceable() {
+        Iterator<Frame> it = queue.iterator();
+        while (it.hasNext() && overLimit()) {
+            Frame queued = it.next();
+            if (queued.replaceable) {
+                it.remove();
+                drop(queued);
+            }
+        }
+    }
+
+    private void collapse() {
+        // Walk newest to oldest and keep the first frame seen for each subscription
+        Set<String> seen = new HashSet<>();
+        Iterator<Frame> it = queue.descendingIterator();
+        while (it.hasNext()) {
+            Frame queued = it.next();
+            if (queued.subscriptionKey != null && !seen.add(queued.subscriptionKey)) {
+                it.remove();
+                drop(queued);
+            }
+        }
+    }
+
+    private void drop(Frame frame) {
+        bufferedBytes -= frame.size;
+        dropped.incrementAndGet();
+    }
+
+    private void evict() {
+        evicted = true;
+        try {
+            getDelegate().close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException | RuntimeException e) {
+            // Already closing
+        }
+    }
+
+    private static final class Frame {
+        private static final byte[] COMMAND = "MESSAGE\n".getBytes(StandardCharsets.US_ASCII);
+        private static final byte[] DESTINATION = "destination:".getBytes(StandardCharsets.US_ASCII);
+        private static final byte[] SUBSCRIPTION = "subscription:".getBytes(StandardCharsets.US_ASCII);
+
+        private final WebSocketMessage<?> message;
+        private final int size;
+        // destination + subscription of a STOMP MESSAGE frame, null for anything else
+        private final String subscriptionKey;
+        private final boolean replaceable;
+
+        Frame(WebSocketMessage<?> message) {
+            this.message = message;
+            this.size = message.getPayloadLength();
+            String destination = null;
+            String subscription = null;
+            if (message instanceof TextMessage text) {
+                // Scan the raw header bytes; decoding every frame to a String per session is what we avoid
+                byte[] frame = text.asBytes();
+                if (startsWith(frame, 0, COMMAND)) {
+                    int line = COMMAND.length;
+                    while (line < frame.length && frame[line] != '\n') {
+                        int end = indexOf(frame, (byte) '\n', line);
+                        if (startsWith(frame, line, DESTINATION)) {
+                            destination = new String(frame, line + DESTINATION.length,
+                                    end - line - DESTINATION.length, StandardCharsets.UTF_8);
+                        } else if (startsWith(frame, line, SUBSCRIPTION)) {
+                            subscription = new String(frame, line + SUBSCRIPTION.length,
+                                    end - line - SUBSCRIPTION.length, StandardCharsets.UTF_8);
+                        }
+                        line = end + 1;
+                    }
+                }
+            }
+            this.subscriptionKey = destination != null ? destination + "|" + subscription : null;
+            this.replaceable = destination != null && REPLACEABLE.matcher(destination).matches();
+        }
+
+        private static boolean startsWith(byte[] frame, int offset, byte[] prefix) {
+            if (frame.length - offset < prefix.length) {
+                return false;
+            }
+            for (int i = 0; i < prefix.length; i++) {
+                if (frame[offset + i] != prefix[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static int indexOf(byte[] frame, byte value, int from) {
+            for (int i = from; i < frame.length; i++) {
+                if (frame[i] == value) {
+                    return i;
+                }
+            }
+            return frame.length;
+        }
+    }
+}
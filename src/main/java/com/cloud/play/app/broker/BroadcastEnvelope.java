@@ -0,0 +1,31 @@
+package com.cloud.play.app.broker;
+
+public class BroadcastEnvelope {
+    private final String origin;
+    private final String destination;
+    private final String contentType;
+    private final byte[] payload;
+
+    public BroadcastEnvelope(String origin, String destination, String contentType, byte[] payload) {
+        this.origin = origin;
+        this.destination = destination;
+        this.contentType = contentType;
+        this.payload = payload;
+    }
+
+    public String getOrigin() {
+        return origin;
+    }
+
+    public String getDestination() {
+        return destination;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+}
@@ -0,0 +1,16 @@
+package com.cloud.play.app.broker;
+
+import java.util.function.Consumer;
+
+/**
+ * Pub/sub channel that carries already-serialized /topic broadcasts between nodes. Every
+ * published envelope is delivered to every started listener, including the publisher's own.
+ */
+public interface BroadcastTransport {
+
+    void publish(BroadcastEnvelope envelope);
+
+    void start(Consumer<BroadcastEnvelope> listener);
+
+    void stop();
+}
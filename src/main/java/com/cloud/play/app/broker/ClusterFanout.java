@@ -0,0 +1,120 @@
+package com.cloud.play.app.broker;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Broker-channel interceptor that mirrors every local /topic broadcast onto the
+ * {@link BroadcastTransport} and replays envelopes from other nodes into the local simple broker.
+ * The local broker gets the message first; the publish is then handed to a single bounded
+ * publisher thread, so a slow or failing transport neither delays nor drops local delivery. When
+ * that queue is full or the transport fails, the broadcast is lost for remote nodes only.
+ * <p>
+ * Only messages are mirrored, not the playback state behind them. A node that merely relays a
+ * room's deltas answers SYNC and /resume from its own stale state, so every client of a room
+ * must be routed to the same node, for example by hashing the room id at the load balancer.
+ */
+@Component
+@ConditionalOnProperty(name = "cloudplay.broker.mode", havingValue = "fanout")
+public class ClusterFanout implements ChannelInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterFanout.class);
+
+    private static final String RELAYED_HEADER = "cloudplayRelayed";
+
+    @Autowired
+    private BroadcastTransport transport;
+
+    // Lazy because the template sits on the broker channel this interceptor is registered with
+    @Autowired
+    @Lazy
+    private SimpMessagingTemplate brokerMessagingTemplate;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    // One thread keeps this node's broadcasts in order on the transport
+    private final ThreadPoolTaskExecutor publisher = new ThreadPoolTaskExecutor();
+
+    public ClusterFanout(@Value("${cloudplay.broker.fanout.publish-queue-capacity:10000}") int queueCapacity) {
+        publisher.setCorePoolSize(1);
+        publisher.setMaxPoolSize(1);
+        publisher.setQueueCapacity(queueCapacity);
+        publisher.setThreadNamePrefix("fanout-publish-");
+        publisher.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        publisher.setWaitForTasksToCompleteOnShutdown(false);
+        publisher.initialize();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        transport.start(this::deliver);
+    }
+
+    @PreDestroy
+    public void stop() {
+        publisher.shutdown();
+        transport.stop();
+    }
+
+    // After the send, so local subscribers never wait on the transport
+    @Override
+    public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex) {
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) == SimpMessageType.MESSAGE
+                && destination != null && destination.startsWith("/topic/")
+                && message.getHeaders().get(RELAYED_HEADER) == null
+                && message.getPayload() instanceof byte[] payload) {
+            MimeType contentType = SimpMessageHeaderAccessor.getContentType(message.getHeaders());
+            BroadcastEnvelope envelope = new BroadcastEnvelope(
+                    nodeId, destination, contentType != null ? contentType.toString() : null, payload);
+            try {
+                publisher.execute(() -> publish(envelope));
+            } catch (RejectedExecutionException e) {
+                log.warn("Fan-out publish queue full; dropped broadcast to {} for remote nodes", destination);
+            }
+        }
+    }
+
+    private void publish(BroadcastEnvelope envelope) {
+        try {
+            transport.publish(envelope);
+        } catch (RuntimeException e) {
+            log.warn("Fan-out publish to {} failed", envelope.getDestination(), e);
+        }
+    }
+
+    private void deliver(BroadcastEnvelope envelope) {
+        if (nodeId.equals(envelope.getOrigin())) {
+            return;
+        }
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        if (envelope.getContentType() != null) {
+            accessor.setContentType(MimeType.valueOf(envelope.getContentType()));
+        }
+        accessor.setHeader(RELAYED_HEADER, Boolean.TRUE);
+        accessor.setLeaveMutable(true);
+        brokerMessagingTemplate.send(envelope.getDestination(),
+                MessageBuilder.createMessage(envelope.getPayload(), accessor.getMessageHeaders()));
+    }
+}
@@ -0,0 +1,43 @@
+package com.cloud.play.app.broker;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Stand-in transport shared by every application context in the same JVM, so several
+ * contexts started side by side behave like nodes of one cluster.
+ */
+@Component
+@ConditionalOnProperty(name = "cloudplay.broker.fanout.transport", havingValue = "in-process", matchIfMissing = true)
+public class InProcessBroadcastTransport implements BroadcastTransport {
+
+    private static final List<Consumer<BroadcastEnvelope>> LISTENERS = new CopyOnWriteArrayList<>();
+
+    private volatile Consumer<BroadcastEnvelope> listener;
+
+    @Override
+    public void publish(BroadcastEnvelope envelope) {
+        for (Consumer<BroadcastEnvelope> each : LISTENERS) {
+            each.accept(envelope);
+        }
+    }
+
+    @Override
+    public void start(Consumer<BroadcastEnvelope> listener) {
+        this.listener = listener;
+        LISTENERS.add(listener);
+    }
+
+    @Override
+    public void stop() {
+        Consumer<BroadcastEnvelope> current = listener;
+        if (current != null) {
+            LISTENERS.remove(current);
+            listener = null;
+        }
+    }
+}
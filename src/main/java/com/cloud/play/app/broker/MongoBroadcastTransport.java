@@ -0,0 +1,116 @@
+package com.cloud.play.app.broker;
+
+import com.mongodb.CursorType;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.CreateCollectionOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Sorts;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Fans broadcasts out through a capped collection. Each node tails it with an awaiting cursor, so
+ * a published envelope reaches the other nodes as soon as the insert is visible.
+ */
+@Component
+@ConditionalOnProperty(name = "cloudplay.broker.fanout.transport", havingValue = "mongo")
+public class MongoBroadcastTransport implements BroadcastTransport {
+
+    private static final long RETRY_MILLIS = 500;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${cloudplay.broker.fanout.mongo.collection:broadcasts}")
+    private String collectionName;
+
+    @Value("${cloudplay.broker.fanout.mongo.capped-bytes:16777216}")
+    private long cappedBytes;
+
+    @Value("${cloudplay.broker.fanout.mongo.max-await-ms:250}")
+    private long maxAwaitMs;
+
+    private volatile Thread tailer;
+
+    @Override
+    public void publish(BroadcastEnvelope envelope) {
+        collection().insertOne(new Document("origin", envelope.getOrigin())
+                .append("destination", envelope.getDestination())
+                .append("contentType", envelope.getContentType())
+                .append("payload", new Binary(envelope.getPayload())));
+    }
+
+    @Override
+    public void start(Consumer<BroadcastEnvelope> listener) {
+        if (!mongoTemplate.collectionExists(collectionName)) {
+            try {
+                mongoTemplate.getDb().createCollection(collectionName,
+                        new CreateCollectionOptions().capped(true).sizeInBytes(cappedBytes));
+            } catch (MongoException e) {
+                // Another node created it first
+            }
+        }
+
+        Thread thread = new Thread(() -> tail(listener), "broadcast-tail");
+        thread.setDaemon(true);
+        tailer = thread;
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        Thread thread = tailer;
+        tailer = null;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private void tail(Consumer<BroadcastEnvelope> listener) {
+        // Start after whatever is already in the collection; history is never replayed
+        Document newest = collection().find().sort(Sorts.descending("$natural")).first();
+        ObjectId lastSeen = newest != null ? newest.getObjectId("_id") : null;
+
+        while (tailer == Thread.currentThread()) {
+            // A tailable cursor dies on an empty collection or after a restart, so reopen it from the last id
+            try (MongoCursor<Document> cursor = collection()
+                    .find(lastSeen != null ? Filters.gt("_id", lastSeen) : new Document())
+                    .cursorType(CursorType.TailableAwait)
+                    .maxAwaitTime(maxAwaitMs, TimeUnit.MILLISECONDS)
+                    .iterator()) {
+                while (tailer == Thread.currentThread() && cursor.hasNext()) {
+                    Document doc = cursor.next();
+                    lastSeen = doc.getObjectId("_id");
+                    listener.accept(new BroadcastEnvelope(
+                            doc.getString("origin"),
+                            doc.getString("destination"),
+                            doc.getString("contentType"),
+                            doc.get("payload", Binary.class).getData()));
+                }
+            } catch (RuntimeException e) {
+                // Reconnect below; a bad envelope or dropped connection must not end the tail
+            }
+
+            try {
+                Thread.sleep(RETRY_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private MongoCollection<Document> collection() {
+        return mongoTemplate.getCollection(collectionName);
+    }
+}
@@ -0,0 +1,149 @@
+package com.cloud.play.app.broker;
+
+import com.cloud.play.app.dto.SessionStatsDTO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Wraps every STOMP WebSocket session in a {@link BackpressureSession} and keeps them indexed so
+ * per-session queue depth can be inspected.
+ */
+@Component
+public class OutboundBackpressure implements WebSocketHandlerDecoratorFactory {
+
+    private final BackpressureSession.Policy policy;
+
+    @Value("${cloudplay.ws.outbound.queue-limit:256}")
+    private int queueLimit;
+
+    @Value("${cloudplay.ws.outbound.buffer-size-limit:524288}")
+    private int bufferSizeLimit;
+
+    @Value("${cloudplay.ws.outbound.send-time-limit-ms:5000}")
+    private long sendTimeLimitMs;
+
+    // Sends only enqueue; these threads do the socket writes, so a stalled client never blocks the broker
+    private final ThreadPoolTaskExecutor writerExecutor = new ThreadPoolTaskExecutor();
+
+    // A write blocked on a stalled client holds a writer thread; closing the session is what frees it,
+    // and a quiet session gets no new send that would notice the stall
+    private final ScheduledExecutorService watchdog = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "ws-writer-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ConcurrentHashMap<String, BackpressureSession> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong evictedTotal = new AtomicLong();
+
+    public OutboundBackpressure(
+            @Value("${cloudplay.ws.outbound.policy:drop-stale}") String policy,
+            @Value("${cloudplay.ws.outbound.writers:#{T(java.lang.Runtime).getRuntime().availableProcessors() * 2}}") int writers) {
+        // Parsed here so a misspelt policy fails startup instead of every connection attempt
+        this.policy = parsePolicy(policy);
+        writerExecutor.setCorePoolSize(writers);
+        writerExecutor.setMaxPoolSize(writers);
+        writerExecutor.setThreadNamePrefix("ws-writer-");
+        writerExecutor.setWaitForTasksToCompleteOnShutdown(false);
+        writerExecutor.initialize();
+    }
+
+    @PostConstruct
+    public void start() {
+        long period = Math.max(100, sendTimeLimitMs / 4);
+        watchdog.scheduleWithFixedDelay(() -> {
+            long now = System.nanoTime();
+            for (BackpressureSession session : sessions.values()) {
+                session.evictIfStalled(now);
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        watchdog.shutdownNow();
+        writerExecutor.shutdown();
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                BackpressureSession decorated = new BackpressureSession(session, policy,
+                        queueLimit, bufferSizeLimit, sendTimeLimitMs, writerExecutor);
+                sessions.put(session.getId(), decorated);
+                super.afterConnectionEstablished(decorated);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                BackpressureSession decorated = sessions.remove(session.getId());
+                if (decorated != null && decorated.isEvicted()) {
+                    evictedTotal.incrementAndGet();
+                }
+                super.afterConnectionClosed(decorated != null ? decorated : session, closeStatus);
+            }
+        };
+    }
+
+    // Slowest consumers first
+    public List<SessionStatsDTO> getSessionStats(int limit) {
+        return sessions.entrySet().stream()
+                .map(entry -> new SessionStatsDTO(entry.getKey(), entry.getValue().getQueueDepth(),
+                        entry.getValue().getBufferedBytes(), entry.getValue().getDropped()))
+                .sorted(Comparator.comparingInt(SessionStatsDTO::getQueueDepth).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    public long getQueuedFrames() {
+        long queued = 0;
+        for (BackpressureSession session : sessions.values()) {
+            queued += session.getQueueDepth();
+        }
+        return queued;
+    }
+
+    public long getBufferedBytes() {
+        long buffered = 0;
+        for (BackpressureSession session : sessions.values()) {
+            buffered += session.getBufferedBytes();
+        }
+        return buffered;
+    }
+
+    public long getEvictedTotal() {
+        return evictedTotal.get();
+    }
+
+    private static BackpressureSession.Policy parsePolicy(String policy) {
+        try {
+            return BackpressureSession.Policy.valueOf(policy.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown cloudplay.ws.outbound.policy '" + policy
+                    + "'; expected drop-stale, collapse or disconnect");
+        }
+    }
+}
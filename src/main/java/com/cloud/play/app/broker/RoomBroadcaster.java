@@ -0,0 +1,77 @@
+package com.cloud.play.app.broker;
+
+import com.cloud.play.app.trace.RequestTracer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.UncheckedIOException;
+
+/**
+ * Publishes room topic messages as pre-encoded JSON. The payload is serialized exactly once and
+ * the broker hands the same byte array to every subscriber, bypassing the template's converters.
+ */
+@Component
+public class RoomBroadcaster {
+
+    private static final MimeType JSON = MimeTypeUtils.APPLICATION_JSON;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private RequestTracer tracer;
+
+    public void send(String destination, Object payload) {
+        sendJson(destination, encode(payload));
+    }
+
+    public byte[] encode(Object payload) {
+        int span = tracer.begin("jackson");
+        try {
+            return objectMapper.writeValueAsBytes(payload);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            tracer.end(span);
+        }
+    }
+
+    public void sendJson(String destination, byte[] json) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(JSON);
+        accessor.setLeaveMutable(true);
+        // Hand-off to the broker channel; delivery itself runs on the broker lanes
+        int span = tracer.begin("broker.send", destination);
+        try {
+            messagingTemplate.send(destination, MessageBuilder.createMessage(json, accessor.getMessageHeaders()));
+        } finally {
+            tracer.end(span);
+        }
+    }
+
+    // Reply to one STOMP session; without a principal the session id stands in for the user name
+    public void sendToSession(String sessionId, String destination, byte[] json) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(JSON);
+        accessor.setSessionId(sessionId);
+        accessor.setLeaveMutable(true);
+        int span = tracer.begin("broker.send", destination);
+        try {
+            messagingTemplate.send(messagingTemplate.getUserDestinationPrefix() + sessionId + destination,
+                    MessageBuilder.createMessage(json, accessor.getMessageHeaders()));
+        } finally {
+            tracer.end(span);
+        }
+    }
+}
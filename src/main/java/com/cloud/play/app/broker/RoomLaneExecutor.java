@@ -0,0 +1,166 @@
+package com.cloud.play.app.broker;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Channel executor that runs every message with the same key on the same single-threaded lane, so
+ * those messages are handled strictly in order and a busy key only delays the keys sharing its lane.
+ * On the broker channel the key is the room, so a room's broadcasts leave in publish order. On the
+ * client inbound channel it must be the session: CONNECT, SUBSCRIBE, UNSUBSCRIBE and DISCONNECT of
+ * one session have to be handled in the order they arrived, and UNSUBSCRIBE carries no destination
+ * to route by. It extends ThreadPoolTaskExecutor only because that is the type STOMP channel
+ * registration accepts; the inherited pool stays idle.
+ */
+public class RoomLaneExecutor extends ThreadPoolTaskExecutor {
+
+    private static final Pattern ROOM_DESTINATION = Pattern.compile("^/(?:app|topic)/room/([^/]+)");
+
+    private final int laneCount;
+    private final boolean byRoom;
+    private Lane[] lanes;
+
+    private RoomLaneExecutor(String threadNamePrefix, int laneCount, boolean byRoom) {
+        this.laneCount = Math.max(1, laneCount);
+        this.byRoom = byRoom;
+        setThreadNamePrefix(threadNamePrefix);
+        setCorePoolSize(1);
+        setMaxPoolSize(1);
+    }
+
+    // Broker channel: ordered per room destination
+    public static RoomLaneExecutor byRoom(String threadNamePrefix, int laneCount) {
+        return new RoomLaneExecutor(threadNamePrefix, laneCount, true);
+    }
+
+    // Client inbound channel: ordered per session
+    public static RoomLaneExecutor bySession(String threadNamePrefix, int laneCount) {
+        return new RoomLaneExecutor(threadNamePrefix, laneCount, false);
+    }
+
+    @Override
+    protected ExecutorService initializeExecutor(ThreadFactory threadFactory, RejectedExecutionHandler rejectedExecutionHandler) {
+        Lane[] created = new Lane[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            created[i] = new Lane(getThreadNamePrefix() + i);
+        }
+        lanes = created;
+        return super.initializeExecutor(threadFactory, rejectedExecutionHandler);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        Lane[] current = lanes;
+        if (current == null) {
+            throw new IllegalStateException("RoomLaneExecutor not initialized");
+        }
+        current[Math.floorMod(keyOf(task, byRoom).hashCode(), current.length)].submit(task);
+    }
+
+    @Override
+    public void shutdown() {
+        Lane[] current = lanes;
+        if (current != null) {
+            for (Lane lane : current) {
+                lane.stop();
+            }
+        }
+        super.shutdown();
+    }
+
+    // Messages waiting across all lanes, for the channel queue-depth gauges
+    public int getQueuedCount() {
+        Lane[] current = lanes;
+        int queued = 0;
+        if (current != null) {
+            for (Lane lane : current) {
+                queued += lane.depth.get();
+            }
+        }
+        return queued;
+    }
+
+    private static String keyOf(Runnable task, boolean byRoom) {
+        if (!(task instanceof MessageHandlingRunnable handling)) {
+            return "";
+        }
+        Message<?> message = handling.getMessage();
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (byRoom && destination != null) {
+            Matcher matcher = ROOM_DESTINATION.matcher(destination);
+            if (matcher.find()) {
+                return matcher.group(1);
+            }
+        }
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (sessionId != null) {
+            return sessionId;
+        }
+        return destination != null ? destination : "";
+    }
+
+    private static final class Lane implements Runnable {
+        // Many producers, one consumer; ConcurrentLinkedQueue offers without locking
+        private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+        // Tracked separately because ConcurrentLinkedQueue.size() walks the whole queue
+        private final AtomicInteger depth = new AtomicInteger();
+        private final AtomicBoolean parked = new AtomicBoolean();
+        private final Thread thread;
+        private volatile boolean running = true;
+
+        Lane(String name) {
+            thread = new Thread(this, name);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        void submit(Runnable task) {
+            queue.offer(task);
+            depth.incrementAndGet();
+            if (parked.compareAndSet(true, false)) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        void stop() {
+            running = false;
+            LockSupport.unpark(thread);
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                Runnable task = queue.poll();
+                if (task == null) {
+                    // Advertise the park first, then re-check, so a concurrent submit is never missed
+                    parked.set(true);
+                    if (queue.isEmpty() && running) {
+                        LockSupport.park(this);
+                    }
+                    parked.set(false);
+                    continue;
+                }
+                depth.decrementAndGet();
+                try {
+                    task.run();
+                } catch (Throwable e) {
+                    // The channel reports handler failures itself; the lane must keep draining, since
+                    // a dead lane thread would leave its queue growing with nobody to empty it
+                }
+            }
+        }
+    }
+}
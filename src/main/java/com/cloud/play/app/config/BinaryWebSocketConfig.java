@@ -0,0 +1,24 @@
+package com.cloud.play.app.config;
+
+import com.cloud.play.app.wire.BinaryRoomHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+@Configuration
+@EnableWebSocket
+@ConditionalOnProperty(name = "cloudplay.ws.binary.enabled", havingValue = "true", matchIfMissing = true)
+public class BinaryWebSocketConfig implements WebSocketConfigurer {
+
+    @Autowired
+    private BinaryRoomHandler binaryRoomHandler;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(binaryRoomHandler, "/ws/room-bin")
+                .setAllowedOriginPatterns("*");
+    }
+}
@@ -0,0 +1,47 @@
+
+package com.cloud.play.app.config;
+
+import com.cloud.play.CloudPlay.entity.RoomEntity;
+import com.cloud.play.CloudPlay.entity.RoomPresenceEntity;
+import com.cloud.play.app.entity.ScheduleLeaseEntity;
+import com.cloud.play.app.entity.ScheduleNodeEntity;
+import com.cloud.play.app.entity.UploadJobEntity;
+import com.cloud.play.app.entity.UploadSessionEntity;
+import com.cloud.play.app.entity.VideoEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.List;
+
+@Configuration
+public class MongoIndexConfig {
+
+    // Collections whose queries (and TTL expiry) rely on the indexes declared on their entities
+    private static final List<Class<?>> INDEXED_ENTITIES = List.of(
+            RoomEntity.class, RoomPresenceEntity.class, VideoEntity.class,
+            ScheduleLeaseEntity.class, ScheduleNodeEntity.class,
+            UploadJobEntity.class, UploadSessionEntity.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoMappingContext mongoMappingContext;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        // Auto index creation is off by default in Spring Data MongoDB, so resolve and apply them here
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(mongoMappingContext);
+        for (Class<?> entity : INDEXED_ENTITIES) {
+            IndexOperations indexOps = mongoTemplate.indexOps(entity);
+            resolver.resolveIndexFor(entity).forEach(indexOps::ensureIndex);
+        }
+    }
+}
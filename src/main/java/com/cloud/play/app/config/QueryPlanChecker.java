@@ -0,0 +1,189 @@
+package com.cloud.play.app.config;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Test-profile guard against unindexed queries. Every filtered read, update and delete is
+ * explained once per query shape (collection plus filter fields and operators, values ignored),
+ * and shapes whose winning plan contains a COLLSCAN are recorded. Driver listeners cannot fail
+ * the query itself, so tests call {@link #verify()}, which throws if any were seen. Unfiltered
+ * reads such as findAll are full scans by intent and are not checked.
+ * <p>
+ * The explain runs synchronously inside {@link #commandStarted}, on the caller's thread, while
+ * the original command still holds its pooled connection; the explain checks out a second one.
+ * Each new shape therefore costs an extra round-trip before its query is even sent, and a pool of
+ * size one would block until the checkout times out. That is acceptable for tests only, which is
+ * why the checker is confined to the test profile.
+ */
+@Component
+@Profile("test")
+public class QueryPlanChecker implements CommandListener, MongoClientSettingsBuilderCustomizer {
+
+    // Session and transport fields the explain command rejects or does not need
+    private static final Set<String> STRIPPED_FIELDS = Set.of(
+            "$db", "lsid", "$clusterTime", "$readPreference", "txnNumber", "autocommit",
+            "startTransaction", "readConcern", "writeConcern", "cursor", "batchSize", "singleBatch");
+
+    @Autowired
+    private ObjectProvider<MongoTemplate> mongoTemplate;
+
+    private final Map<String, Boolean> checkedShapes = new ConcurrentHashMap<>();
+    private final List<String> violations = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void customize(MongoClientSettings.Builder builder) {
+        builder.addCommandListener(this);
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        BsonDocument command = event.getCommand();
+        BsonValue filter = filterOf(event.getCommandName(), command);
+        if (filter == null || !filter.isDocument() || filter.asDocument().isEmpty()) {
+            return;
+        }
+        String collection = command.get(event.getCommandName()).isString()
+                ? command.getString(event.getCommandName()).getValue() : "";
+        if (collection.startsWith("system.")) {
+            return;
+        }
+        String shape = event.getCommandName() + " " + collection + " " + shapeOf(filter);
+        if (checkedShapes.putIfAbsent(shape, Boolean.TRUE) != null) {
+            return;
+        }
+        try {
+            Document explain = mongoTemplate.getObject().getDb().runCommand(
+                    new Document("explain", explainable(event.getCommandName(), command))
+                            .append("verbosity", "queryPlanner"));
+            // Aggregations nest the planner output under their first stage, so search the whole reply
+            if (containsCollScan(explain)) {
+                violations.add(shape);
+            }
+        } catch (RuntimeException e) {
+            // An unexplainable command is not a plan failure; the query itself reports real errors
+        }
+    }
+
+    /** Throws if any checked query shape ran as a collection scan. */
+    public void verify() {
+        if (!violations.isEmpty()) {
+            throw new IllegalStateException("Queries without a usable index (COLLSCAN): " + violations);
+        }
+    }
+
+    public List<String> getViolations() {
+        return List.copyOf(violations);
+    }
+
+    public void reset() {
+        violations.clear();
+        checkedShapes.clear();
+    }
+
+    private static BsonValue filterOf(String commandName, BsonDocument command) {
+        return switch (commandName) {
+            case "find", "distinct" -> command.get("filter", command.get("query"));
+            case "count", "findAndModify" -> command.get("query");
+            case "update" -> firstStatement(command, "updates");
+            case "delete" -> firstStatement(command, "deletes");
+            case "aggregate" -> {
+                BsonValue pipeline = command.get("pipeline");
+                if (pipeline != null && pipeline.isArray() && !pipeline.asArray().isEmpty()
+                        && pipeline.asArray().get(0).isDocument()) {
+                    yield pipeline.asArray().get(0).asDocument().get("$match");
+                }
+                yield null;
+            }
+            default -> null;
+        };
+    }
+
+    private static BsonValue firstStatement(BsonDocument command, String field) {
+        BsonValue statements = command.get(field);
+        if (statements == null || !statements.isArray() || statements.asArray().isEmpty()) {
+            return null;
+        }
+        BsonValue first = statements.asArray().get(0);
+        return first.isDocument() ? first.asDocument().get("q") : null;
+    }
+
+    // The original command minus session fields; multi-statement writes are explained by their first statement
+    private static BsonDocument explainable(String commandName, BsonDocument command) {
+        BsonDocument copy = new BsonDocument();
+        for (Map.Entry<String, BsonValue> entry : command.entrySet()) {
+            if (!STRIPPED_FIELDS.contains(entry.getKey())) {
+                copy.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if ("update".equals(commandName) || "delete".equals(commandName)) {
+            String field = "update".equals(commandName) ? "updates" : "deletes";
+            copy.put(field, new BsonArray(List.of(copy.getArray(field).get(0))));
+        }
+        if ("aggregate".equals(commandName)) {
+            copy.put("cursor", new BsonDocument());
+        }
+        return copy;
+    }
+
+    // Field names and operators only, so the same query with other values counts as one shape
+    private static String shapeOf(BsonValue value) {
+        if (value.isDocument()) {
+            List<String> parts = new ArrayList<>();
+            for (Map.Entry<String, BsonValue> entry : value.asDocument().entrySet()) {
+                parts.add(entry.getKey() + ":" + shapeOf(entry.getValue()));
+            }
+            return "{" + String.join(",", parts) + "}";
+        }
+        if (value.isArray()) {
+            List<String> parts = new ArrayList<>();
+            for (BsonValue element : value.asArray()) {
+                String part = shapeOf(element);
+                if (!parts.contains(part)) {
+                    parts.add(part);
+                }
+            }
+            return "[" + String.join(",", parts) + "]";
+        }
+        return "?";
+    }
+
+    private static boolean containsCollScan(Object node) {
+        if (node instanceof Document document) {
+            if ("COLLSCAN".equals(document.get("stage"))) {
+                return true;
+            }
+            for (Map.Entry<String, Object> entry : document.entrySet()) {
+                // Only the winning plan runs; a rejected COLLSCAN candidate is fine
+                if (!"rejectedPlans".equals(entry.getKey()) && containsCollScan(entry.getValue())) {
+                    return true;
+                }
+            }
+        } else if (node instanceof List<?> list) {
+            for (Object child : list) {
+                if (containsCollScan(child)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -1,22 +1,90 @@
 
 package com.cloud.play.app.config;
 
+import com.cloud.play.app.broker.ClusterFanout;
+import com.cloud.play.app.broker.OutboundBackpressure;
+import com.cloud.play.app.broker.RoomLaneExecutor;
+import com.cloud.play.app.trace.TraceChannelInterceptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    // simple: in-JVM broker only; fanout: simple broker per node plus cross-node fan-out;
+    // relay: an external STOMP broker (RabbitMQ, ActiveMQ) holds every subscription.
+    // Only broadcasts cross nodes: playback state and the SYNC/resume delta log stay on the node
+    // that applied the command, so multi-node setups must route each room to one node (sticky rooms)
+    @Value("${cloudplay.broker.mode:simple}")
+    private String brokerMode;
+
+    @Value("${cloudplay.broker.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${cloudplay.broker.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${cloudplay.broker.relay.login:guest}")
+    private String relayLogin;
+
+    @Value("${cloudplay.broker.relay.passcode:guest}")
+    private String relayPasscode;
+
+    @Value("${cloudplay.dispatch.lanes:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}")
+    private int dispatchLanes;
+
+    @Autowired
+    private ObjectProvider<ClusterFanout> clusterFanout;
+
+    @Autowired
+    private OutboundBackpressure outboundBackpressure;
+
+    @Autowired
+    private TraceChannelInterceptor traceChannelInterceptor;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic");
+        if ("relay".equals(brokerMode)) {
+            config.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode);
+        } else {
+            config.enableSimpleBroker("/topic", "/queue");
+            clusterFanout.ifAvailable(fanout -> config.configureBrokerChannel().interceptors(fanout));
+        }
+        // Broadcasts run on the publishing room's lane so they leave in the order they were produced
+        config.configureBrokerChannel().taskExecutor(RoomLaneExecutor.byRoom("broker-lane-", dispatchLanes));
+        // Keeps each session's outbound frames in publish order across the outbound pool
+        config.setPreservePublishOrder(true);
         config.setApplicationDestinationPrefixes("/app");
     }
 
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // Keyed by session so one client's frames are handled in arrival order
+        registration.taskExecutor(RoomLaneExecutor.bySession("inbound-lane-", dispatchLanes));
+        registration.interceptors(traceChannelInterceptor);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // Per-session queue limits and slow-consumer eviction live in the decorator
+        registration.addDecoratorFactory(outboundBackpressure);
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/ws")
@@ -0,0 +1,68 @@
+package com.cloud.play.app.controller;
+
+import com.cloud.play.app.dto.ClockSyncMessage;
+import com.cloud.play.app.dto.PlaybackCommand;
+import com.cloud.play.app.playback.PlaybackState;
+import com.cloud.play.app.playback.ServerClock;
+import com.cloud.play.app.service.PlaybackCoalescer;
+import com.cloud.play.app.service.PlaybackService;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.stereotype.Controller;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+@Controller
+public class RoomPlaybackController {
+
+    @Autowired
+    private PlaybackService playbackService;
+
+    @Autowired
+    private PlaybackCoalescer playbackCoalescer;
+
+    // Commands update the clock immediately; the coalescer decides when viewers hear about it
+
+    @MessageMapping("/room/{roomId}/play")
+    public void play(@DestinationVariable String roomId,
+                     @Header(SimpMessageHeaderAccessor.SESSION_ID_HEADER) String sessionId,
+                     @Payload(required = false) PlaybackCommand command) {
+        apply(roomId, sessionId, () -> playbackService.play(roomId, command));
+    }
+
+    @MessageMapping("/room/{roomId}/pause")
+    public void pause(@DestinationVariable String roomId,
+                      @Header(SimpMessageHeaderAccessor.SESSION_ID_HEADER) String sessionId,
+                      @Payload(required = false) PlaybackCommand command) {
+        apply(roomId, sessionId, () -> playbackService.pause(roomId, command));
+    }
+
+    @MessageMapping("/room/{roomId}/seek")
+    public void seek(@DestinationVariable String roomId,
+                     @Header(SimpMessageHeaderAccessor.SESSION_ID_HEADER) String sessionId,
+                     @Payload PlaybackCommand command) {
+        apply(roomId, sessionId, () -> playbackService.seek(roomId, command));
+    }
+
+    // Clients ping this a few times, keep the sample with the smallest round trip and
+    // convert every "at" timestamp into local time with the resulting offset
+    @MessageMapping("/time")
+    @SendToUser(destinations = "/queue/time", broadcast = false)
+    public ClockSyncMessage syncClock(@Payload ClockSyncMessage request) {
+        request.setT1(ServerClock.nowMillis());
+        request.setT2(ServerClock.nowMillis());
+        return request;
+    }
+
+    private void apply(String roomId, String sessionId, Supplier<Optional<PlaybackState>> command) {
+        // Every command lands on the clock; the sender's rate limit only paces the broadcast
+        command.get().ifPresent(state -> playbackCoalescer.changed(roomId, sessionId));
+    }
+}
@@ -0,0 +1,29 @@
+package com.cloud.play.app.controller;
+
+import com.cloud.play.app.trace.RequestTracer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/trace")
+public class TraceController {
+
+    @Autowired
+    private RequestTracer tracer;
+
+    // Recent sampled requests over cloudplay.trace.slow-threshold-ms, with their span breakdown
+    @GetMapping("/slow")
+    public ResponseEntity<?> getSlowTraces() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", tracer.isEnabled());
+        result.put("slowTotal", tracer.getSlowCount());
+        result.put("traces", tracer.getSlowTraces());
+        return ResponseEntity.ok(result);
+    }
+}
@@ -1,77 +1,56 @@
-
 package com.cloud.play.app.controller;
 
-import com.cloud.play.app.dto.VideoDTO;
-import com.cloud.play.app.service.RoomService;
-import com.cloud.play.app.service.VideoService;
-import com.cloud.play.app.dto.ScheduleMessage;
+import com.cloud.play.app.broker.RoomBroadcaster;
+import com.cloud.play.app.dto.ResumeRequest;
+import com.cloud.play.app.service.RoomSyncService;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.MessageMapping;
-import org.springframework.messaging.handler.annotation.SendTo;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.stereotype.Controller;
 
-import java.time.LocalDateTime;
-import java.util.List;
-import java.util.Optional;
-import java.util.stream.Collectors;
-
 @Controller
 public class VideoScheduleController {
 
     @Autowired
-    private SimpMessagingTemplate messagingTemplate;
+    private RoomSyncService roomSyncService;
 
     @Autowired
-    private RoomService roomService;
-    
+    private RoomBroadcaster roomBroadcaster;
+
     @Autowired
-    private VideoService videoService;
+    private MeterRegistry meterRegistry;
+
+    private Timer syncTimer;
+    private Timer resumeTimer;
+
+    @PostConstruct
+    public void registerTimers() {
+        // Handling time from dispatch to hand-off to the broker, so broker delay is measured separately
+        syncTimer = Timer.builder("cloudplay.room.sync").tag("kind", "sync").register(meterRegistry);
+        resumeTimer = Timer.builder("cloudplay.room.sync").tag("kind", "resume").register(meterRegistry);
+    }
 
+    // Replies on the room topic as before, but with bytes encoded once instead of via @SendTo conversion
     @MessageMapping("/room/{roomId}/sync")
-    @SendTo("/topic/room/{roomId}")
-    public ScheduleMessage syncRoom(@DestinationVariable String roomId) {
-        return roomService.getRoomById(roomId)
-                .map(room -> {
-                    // Create final reference for the video that will be used in lambda
-                    final VideoDTO[] videoRef = {null};
-                    
-                    if (room.getCurrentVideo() != null) {
-                        videoService.getVideoById(room.getCurrentVideo().getId())
-                                .ifPresent(v -> {
-                                    // Assign to array element instead of variable
-                                    videoRef[0] = videoService.convertToDTO(v);
-                                });
-                    }
-                    
-                    return new ScheduleMessage(
-                            "SYNC",
-                            roomId,
-                            videoRef[0], // Use the array element
-                            room.getScheduledTime() != null ? room.getScheduledTime().toString() : null
-                    );
-                })
-                .orElse(new ScheduleMessage("ERROR", roomId, null, null));
+    public void syncRoom(@DestinationVariable String roomId) {
+        syncTimer.record(() -> roomBroadcaster.sendJson("/topic/room/" + roomId, roomSyncService.encodeSync(roomId)));
     }
 
-    // Check every minute for scheduled videos that should start
-    @Scheduled(fixedRate = 60000)
-    public void checkScheduledVideos() {
-        LocalDateTime now = LocalDateTime.now();
-        
-        List<String> roomsToStart = roomService.getAllRooms().stream()
-                .filter(room -> room.getScheduledTime() != null && 
-                        now.isAfter(room.getScheduledTime()) && 
-                        now.isBefore(room.getScheduledTime().plusMinutes(1)))
-                .map(room -> room.getId())
-                .collect(Collectors.toList());
-        
-        roomsToStart.forEach(roomId -> {
-            ScheduleMessage message = new ScheduleMessage("START", roomId, null, null);
-            messagingTemplate.convertAndSend("/topic/room/" + roomId, message);
-        });
+    // Reconnecting clients send the last playback version they applied and get only what they
+    // missed (or a snapshot) on /user/queue/resume, served from memory
+    @MessageMapping("/room/{roomId}/resume")
+    public void resumeRoom(@DestinationVariable String roomId,
+                           @Header(SimpMessageHeaderAccessor.SESSION_ID_HEADER) String sessionId,
+                           @Payload(required = false) ResumeRequest request) {
+        Long lastVersion = request != null ? request.getVersion() : null;
+        resumeTimer.record(() -> roomBroadcaster.sendToSession(sessionId, "/queue/resume",
+                roomSyncService.encodeResume(roomId, lastVersion)));
     }
 }
@@ -0,0 +1,29 @@
+package com.cloud.play.app.controller;
+
+import com.cloud.play.app.broker.OutboundBackpressure;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/ws")
+public class WebSocketStatsController {
+
+    @Autowired
+    private OutboundBackpressure outboundBackpressure;
+
+    @GetMapping("/sessions/stats")
+    public ResponseEntity<?> getSessionStats(@RequestParam(defaultValue = "20") int limit) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("sessions", outboundBackpressure.getSessionCount());
+        stats.put("evicted", outboundBackpressure.getEvictedTotal());
+        stats.put("slowest", outboundBackpressure.getSessionStats(Math.max(1, Math.min(limit, 100))));
+        return ResponseEntity.ok(stats);
+    }
+}
@@ -0,0 +1,38 @@
+package com.cloud.play.app.dto;
+
+/**
+ * NTP-style timestamps: the client fills t0 when sending and notes t3 on receipt, then estimates
+ * offset = ((t1 - t0) + (t2 - t3)) / 2 and round trip = (t3 - t0) - (t2 - t1).
+ */
+public class ClockSyncMessage {
+    private long t0;
+    private long t1;
+    private long t2;
+
+    public ClockSyncMessage() {
+    }
+
+    public long getT0() {
+        return t0;
+    }
+
+    public void setT0(long t0) {
+        this.t0 = t0;
+    }
+
+    public long getT1() {
+        return t1;
+    }
+
+    public void setT1(long t1) {
+        this.t1 = t1;
+    }
+
+    public long getT2() {
+        return t2;
+    }
+
+    public void setT2(long t2) {
+        this.t2 = t2;
+    }
+}
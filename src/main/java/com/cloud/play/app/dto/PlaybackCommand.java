@@ -0,0 +1,30 @@
+package com.cloud.play.app.dto;
+
+public class PlaybackCommand {
+    private Long positionMs;
+    private Double rate;
+
+    public PlaybackCommand() {
+    }
+
+    public PlaybackCommand(Long positionMs, Double rate) {
+        this.positionMs = positionMs;
+        this.rate = rate;
+    }
+
+    public Long getPositionMs() {
+        return positionMs;
+    }
+
+    public void setPositionMs(Long positionMs) {
+        this.positionMs = positionMs;
+    }
+
+    public Double getRate() {
+        return rate;
+    }
+
+    public void setRate(Double rate) {
+        this.rate = rate;
+    }
+}
@@ -0,0 +1,78 @@
+package com.cloud.play.app.dto;
+
+import com.cloud.play.app.playback.PlaybackState;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Wire form of a room's playback state, kept to a handful of short keys because it is broadcast
+ * to every viewer on each transition. Clients extrapolate pos + (serverNow - at) * r while p is true.
+ */
+public class PlaybackDelta {
+    @JsonProperty("v")
+    private long version;
+
+    @JsonProperty("p")
+    private boolean playing;
+
+    @JsonProperty("pos")
+    private long positionMs;
+
+    @JsonProperty("at")
+    private long serverTime;
+
+    @JsonProperty("r")
+    private double rate;
+
+    public PlaybackDelta() {
+    }
+
+    public static PlaybackDelta from(PlaybackState state) {
+        PlaybackDelta delta = new PlaybackDelta();
+        delta.version = state.getVersion();
+        delta.playing = state.isPlaying();
+        delta.positionMs = state.getPositionMs();
+        delta.serverTime = state.getAnchorMillis();
+        delta.rate = state.getRate();
+        return delta;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public boolean isPlaying() {
+        return playing;
+    }
+
+    public void setPlaying(boolean playing) {
+        this.playing = playing;
+    }
+
+    public long getPositionMs() {
+        return positionMs;
+    }
+
+    public void setPositionMs(long positionMs) {
+        this.positionMs = positionMs;
+    }
+
+    public long getServerTime() {
+        return serverTime;
+    }
+
+    public void setServerTime(long serverTime) {
+        this.serverTime = serverTime;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    public void setRate(double rate) {
+        this.rate = rate;
+    }
+}
@@ -0,0 +1,17 @@
+package com.cloud.play.app.dto;
+
+public class ResumeRequest {
+    // Playback version ("v") of the last delta the client applied
+    private Long version;
+
+    public ResumeRequest() {
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
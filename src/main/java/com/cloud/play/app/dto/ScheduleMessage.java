@@ -6,6 +6,7 @@ public class ScheduleMessage {
     private String roomId;
     private VideoDTO video;
     private String scheduledTime;
+    private PlaybackDelta playback;
 
     public ScheduleMessage() {
     }
@@ -48,4 +49,12 @@ public class ScheduleMessage {
     public void setScheduledTime(String scheduledTime) {
         this.scheduledTime = scheduledTime;
     }
+
+    public PlaybackDelta getPlayback() {
+        return playback;
+    }
+
+    public void setPlayback(PlaybackDelta playback) {
+        this.playback = playback;
+    }
 }
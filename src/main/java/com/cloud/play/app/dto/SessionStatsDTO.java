@@ -0,0 +1,50 @@
+package com.cloud.play.app.dto;
+
+public class SessionStatsDTO {
+    private String sessionId;
+    private int queueDepth;
+    private int bufferedBytes;
+    private long dropped;
+
+    public SessionStatsDTO() {
+    }
+
+    public SessionStatsDTO(String sessionId, int queueDepth, int bufferedBytes, long dropped) {
+        this.sessionId = sessionId;
+        this.queueDepth = queueDepth;
+        this.bufferedBytes = bufferedBytes;
+        this.dropped = dropped;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(String sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public void setQueueDepth(int queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+
+    public int getBufferedBytes() {
+        return bufferedBytes;
+    }
+
+    public void setBufferedBytes(int bufferedBytes) {
+        this.bufferedBytes = bufferedBytes;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    public void setDropped(long dropped) {
+        this.dropped = dropped;
+    }
+}
@@ -0,0 +1,82 @@
+package com.cloud.play.app.dto;
+
+import java.util.List;
+
+public class SlowTraceDTO {
+    private String kind;
+    private String name;
+    private long startedAt;
+    private long durationMicros;
+    private long selfMicros;
+    private int droppedSpans;
+    private List<TraceSpanDTO> spans;
+
+    public SlowTraceDTO() {
+    }
+
+    public SlowTraceDTO(String kind, String name, long startedAt, long durationMicros, long selfMicros, int droppedSpans, List<TraceSpanDTO> spans) {
+        this.kind = kind;
+        this.name = name;
+        this.startedAt = startedAt;
+        this.durationMicros = durationMicros;
+        this.selfMicros = selfMicros;
+        this.droppedSpans = droppedSpans;
+        this.spans = spans;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public void setKind(String kind) {
+        this.kind = kind;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(long startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public long getDurationMicros() {
+        return durationMicros;
+    }
+
+    public void setDurationMicros(long durationMicros) {
+        this.durationMicros = durationMicros;
+    }
+
+    public long getSelfMicros() {
+        return selfMicros;
+    }
+
+    public void setSelfMicros(long selfMicros) {
+        this.selfMicros = selfMicros;
+    }
+
+    public int getDroppedSpans() {
+        return droppedSpans;
+    }
+
+    public void setDroppedSpans(int droppedSpans) {
+        this.droppedSpans = droppedSpans;
+    }
+
+    public List<TraceSpanDTO> getSpans() {
+        return spans;
+    }
+
+    public void setSpans(List<TraceSpanDTO> spans) {
+        this.spans = spans;
+    }
+}
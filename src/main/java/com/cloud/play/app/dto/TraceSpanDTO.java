@@ -0,0 +1,70 @@
+package com.cloud.play.app.dto;
+
+public class TraceSpanDTO {
+    private String name;
+    private String detail;
+    private int depth;
+    private long offsetMicros;
+    private long durationMicros;
+    private long selfMicros;
+
+    public TraceSpanDTO() {
+    }
+
+    public TraceSpanDTO(String name, String detail, int depth, long offsetMicros, long durationMicros, long selfMicros) {
+        this.name = name;
+        this.detail = detail;
+        this.depth = depth;
+        this.offsetMicros = offsetMicros;
+        this.durationMicros = durationMicros;
+        this.selfMicros = selfMicros;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getDetail() {
+        return detail;
+    }
+
+    public void setDetail(String detail) {
+        this.detail = detail;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public void setDepth(int depth) {
+        this.depth = depth;
+    }
+
+    public long getOffsetMicros() {
+        return offsetMicros;
+    }
+
+    public void setOffsetMicros(long offsetMicros) {
+        this.offsetMicros = offsetMicros;
+    }
+
+    public long getDurationMicros() {
+        return durationMicros;
+    }
+
+    public void setDurationMicros(long durationMicros) {
+        this.durationMicros = durationMicros;
+    }
+
+    public long getSelfMicros() {
+        return selfMicros;
+    }
+
+    public void setSelfMicros(long selfMicros) {
+        this.selfMicros = selfMicros;
+    }
+}
@@ -0,0 +1,48 @@
+package com.cloud.play.app.entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+@Document(collection = "schedule_leases")
+public class ScheduleLeaseEntity {
+    // Shard number; rooms map onto shards by id hash
+    @Id
+    private Integer id;
+    
+    private String owner;
+    
+    // Ownership checks compare against this; the TTL index only tidies up abandoned shards
+    @Indexed(expireAfterSeconds = 0)
+    private Date expiresAt;
+    
+    // Constructors
+    public ScheduleLeaseEntity() {}
+    
+    // Getters and Setters
+    public Integer getId() {
+        return id;
+    }
+    
+    public void setId(Integer id) {
+        this.id = id;
+    }
+    
+    public String getOwner() {
+        return owner;
+    }
+    
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+    
+    public Date getExpiresAt() {
+        return expiresAt;
+    }
+    
+    public void setExpiresAt(Date expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
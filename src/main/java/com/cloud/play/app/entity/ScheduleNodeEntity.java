@@ -0,0 +1,37 @@
+package com.cloud.play.app.entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+@Document(collection = "schedule_nodes")
+public class ScheduleNodeEntity {
+    @Id
+    private String id;
+    
+    // Refreshed by every heartbeat; a node that stops beating drops out of the fair-share count
+    @Indexed(expireAfterSeconds = 0)
+    private Date expiresAt;
+    
+    // Constructors
+    public ScheduleNodeEntity() {}
+    
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+    
+    public void setId(String id) {
+        this.id = id;
+    }
+    
+    public Date getExpiresAt() {
+        return expiresAt;
+    }
+    
+    public void setExpiresAt(Date expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
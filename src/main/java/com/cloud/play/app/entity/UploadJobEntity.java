@@ -0,0 +1,162 @@
+
+package com.cloud.play.app.entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+@Document(collection = "upload_jobs")
+@CompoundIndex(name = "status_owner_createdAt", def = "{'status': 1, 'owner': 1, 'createdAt': 1}")
+public class UploadJobEntity {
+
+    public enum Status {
+        // Saved before its spool file is complete; never claimed until enqueue flips it to QUEUED
+        SPOOLING,
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    @Id
+    private String id;
+    
+    private Status status;
+    
+    private String title;
+    
+    private String description;
+    
+    private String originalFilename;
+    
+    private String spoolPath;
+    
+    // Node whose local disk holds the spool file; only that node can process the job
+    private String owner;
+    
+    private long totalBytes;
+    
+    private long bytesProcessed;
+    
+    private String videoId;
+    
+    private String error;
+    
+    private LocalDateTime createdAt;
+    
+    private LocalDateTime updatedAt;
+    
+    // Constructors
+    public UploadJobEntity() {
+        this.status = Status.SPOOLING;
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
+    }
+    
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+    
+    public void setId(String id) {
+        this.id = id;
+    }
+    
+    public Status getStatus() {
+        return status;
+    }
+    
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+    
+    public String getTitle() {
+        return title;
+    }
+    
+    public void setTitle(String title) {
+        this.title = title;
+    }
+    
+    public String getDescription() {
+        return description;
+    }
+    
+    public void setDescription(String description) {
+        this.description = description;
+    }
+    
+    public String getOriginalFilename() {
+        return originalFilename;
+    }
+    
+    public void setOriginalFilename(String originalFilename) {
+        this.originalFilename = originalFilename;
+    }
+    
+    public String getSpoolPath() {
+        return spoolPath;
+    }
+    
+    public void setSpoolPath(String spoolPath) {
+        this.spoolPath = spoolPath;
+    }
+    
+    public String getOwner() {
+        return owner;
+    }
+    
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+    
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+    
+    public void setTotalBytes(long totalBytes) {
+        this.totalBytes = totalBytes;
+    }
+    
+    public long getBytesProcessed() {
+        return bytesProcessed;
+    }
+    
+    public void setBytesProcessed(long bytesProcessed) {
+        this.bytesProcessed = bytesProcessed;
+    }
+    
+    public String getVideoId() {
+        return videoId;
+    }
+    
+    public void setVideoId(String videoId) {
+        this.videoId = videoId;
+    }
+    
+    public String getError() {
+        return error;
+    }
+    
+    public void setError(String error) {
+        this.error = error;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
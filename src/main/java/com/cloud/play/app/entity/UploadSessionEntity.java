@@ -0,0 +1,159 @@
+
+package com.cloud.play.app.entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+@Document(collection = "upload_sessions")
+public class UploadSessionEntity {
+    @Id
+    private String id;
+    
+    private String title;
+    
+    private String description;
+    
+    private String originalFilename;
+    
+    private long totalBytes;
+    
+    private int chunkSize;
+    
+    private int chunkCount;
+    
+    private Set<Integer> receivedChunks = new HashSet<>();
+    
+    private String stagingPath;
+    
+    private String jobId;
+    
+    // Set while one complete() call assembles the upload, so a concurrent one cannot submit it twice
+    private LocalDateTime completingAt;
+    
+    private LocalDateTime createdAt;
+    
+    // Swept for abandoned sessions
+    @Indexed(name = "updatedAt")
+    private LocalDateTime updatedAt;
+    
+    // Constructors
+    public UploadSessionEntity() {
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
+    }
+    
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+    
+    public void setId(String id) {
+        this.id = id;
+    }
+    
+    public String getTitle() {
+        return title;
+    }
+    
+    public void setTitle(String title) {
+        this.title = title;
+    }
+    
+    public String getDescription() {
+        return description;
+    }
+    
+    public void setDescription(String description) {
+        this.description = description;
+    }
+    
+    public String getOriginalFilename() {
+        return originalFilename;
+    }
+    
+    public void setOriginalFilename(String originalFilename) {
+        this.originalFilename = originalFilename;
+    }
+    
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+    
+    public void setTotalBytes(long totalBytes) {
+        this.totalBytes = totalBytes;
+    }
+    
+    public int getChunkSize() {
+        return chunkSize;
+    }
+    
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+    
+    public int getChunkCount() {
+        return chunkCount;
+    }
+    
+    public void setChunkCount(int chunkCount) {
+        this.chunkCount = chunkCount;
+    }
+    
+    public Set<Integer> getReceivedChunks() {
+        return receivedChunks;
+    }
+    
+    public void setReceivedChunks(Set<Integer> receivedChunks) {
+        this.receivedChunks = receivedChunks;
+    }
+    
+    public String getStagingPath() {
+        return stagingPath;
+    }
+    
+    public void setStagingPath(String stagingPath) {
+        this.stagingPath = stagingPath;
+    }
+    
+    public String getJobId() {
+        return jobId;
+    }
+    
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+    
+    public LocalDateTime getCompletingAt() {
+        return completingAt;
+    }
+    
+    public void setCompletingAt(LocalDateTime completingAt) {
+        this.completingAt = completingAt;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+    
+    public long chunkLength(int index) {
+        long offset = (long) index * chunkSize;
+        return Math.min(chunkSize, totalBytes - offset);
+    }
+}
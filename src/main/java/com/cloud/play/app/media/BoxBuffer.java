@@ -0,0 +1,80 @@
+
+package com.cloud.play.app.media;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Growable big-endian buffer for writing ISO-BMFF boxes with back-patched sizes
+final class BoxBuffer {
+
+    private byte[] buf = new byte[4096];
+    private int length;
+
+    int begin(String type) {
+        int start = length;
+        u32(0);
+        fourcc(type);
+        return start;
+    }
+
+    void end(int start) {
+        patchU32(start, length - start);
+    }
+
+    BoxBuffer u8(int value) {
+        ensure(1);
+        buf[length++] = (byte) value;
+        return this;
+    }
+
+    BoxBuffer u32(long value) {
+        ensure(4);
+        buf[length++] = (byte) (value >>> 24);
+        buf[length++] = (byte) (value >>> 16);
+        buf[length++] = (byte) (value >>> 8);
+        buf[length++] = (byte) value;
+        return this;
+    }
+
+    BoxBuffer u64(long value) {
+        u32(value >>> 32);
+        return u32(value & 0xFFFFFFFFL);
+    }
+
+    BoxBuffer fourcc(String type) {
+        return bytes(type.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    BoxBuffer bytes(byte[] data) {
+        ensure(data.length);
+        System.arraycopy(data, 0, buf, length, data.length);
+        length += data.length;
+        return this;
+    }
+
+    void patchU32(int position, long value) {
+        buf[position] = (byte) (value >>> 24);
+        buf[position + 1] = (byte) (value >>> 16);
+        buf[position + 2] = (byte) (value >>> 8);
+        buf[position + 3] = (byte) value;
+    }
+
+    int length() {
+        return length;
+    }
+
+    void reset() {
+        length = 0;
+    }
+
+    ByteBuffer asByteBuffer() {
+        return ByteBuffer.wrap(buf, 0, length);
+    }
+
+    private void ensure(int extra) {
+        if (length + extra > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, length + extra));
+        }
+    }
+}
@@ -0,0 +1,32 @@
+
+package com.cloud.play.app.media;
+
+public class HlsPackage {
+    private final int segmentCount;
+    private final double durationSeconds;
+    private final long peakBandwidth;
+    private final long averageBandwidth;
+
+    public HlsPackage(int segmentCount, double durationSeconds, long peakBandwidth, long averageBandwidth) {
+        this.segmentCount = segmentCount;
+        this.durationSeconds = durationSeconds;
+        this.peakBandwidth = peakBandwidth;
+        this.averageBandwidth = averageBandwidth;
+    }
+
+    public int getSegmentCount() {
+        return segmentCount;
+    }
+
+    public double getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public long getPeakBandwidth() {
+        return peakBandwidth;
+    }
+
+    public long getAverageBandwidth() {
+        return averageBandwidth;
+    }
+}
@@ -0,0 +1,388 @@
+
+package com.cloud.play.app.media;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import static com.cloud.play.app.media.IsoBoxes.findBox;
+import static com.cloud.play.app.media.IsoBoxes.fourcc;
+import static com.cloud.play.app.media.IsoBoxes.readUInt32;
+import static com.cloud.play.app.media.IsoBoxes.readUInt64;
+
+/**
+ * Repackages a progressive MP4 into fragmented-MP4 HLS: one init segment, media segments cut
+ * on video sync samples close to the target duration, and master/media playlists. Samples are
+ * copied as-is (no transcoding), so this yields a single rendition of the source.
+ */
+public class HlsSegmenter {
+
+    public static final String MASTER_PLAYLIST = "master.m3u8";
+    public static final String MEDIA_PLAYLIST = "media.m3u8";
+    public static final String INIT_SEGMENT = "init.mp4";
+
+    private static final int MAX_MOOV_BYTES = 64 * 1024 * 1024;
+    private static final long SYNC_SAMPLE_FLAGS = 0x02000000L;
+    private static final long NON_SYNC_SAMPLE_FLAGS = 0x01010000L;
+
+    private final double targetSeconds;
+
+    public HlsSegmenter(double targetSeconds) {
+        this.targetSeconds = targetSeconds;
+    }
+
+    public static String segmentName(int index) {
+        return String.format(Locale.ROOT, "segment_%05d.m4s", index);
+    }
+
+    public HlsPackage segment(Path source, Path outputDir) throws IOException {
+        Files.createDirectories(outputDir);
+
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ)) {
+            byte[] moov = readMoov(in);
+            byte[] mvhd = null;
+            List<Mp4Track> tracks = new ArrayList<>();
+            int pos = 0;
+            int[] box;
+            while ((box = findNextTopLevel(moov, pos)) != null) {
+                String type = fourcc(moov, box[2] + 4);
+                if ("mvhd".equals(type)) {
+                    mvhd = Arrays.copyOfRange(moov, box[2], box[1]);
+                } else if ("trak".equals(type)) {
+                    Mp4Track track = Mp4Track.parse(moov, box, in.size());
+                    if (track != null && track.sampleCount > 0) {
+                        tracks.add(track);
+                    }
+                } else if ("mvex".equals(type)) {
+                    throw new IOException("Source is already fragmented");
+                }
+                pos = box[1];
+            }
+            if (mvhd == null || tracks.isEmpty()) {
+                throw new IOException("No playable tracks in source");
+            }
+
+            Mp4Track driver = tracks.stream().filter(Mp4Track::isVideo).findFirst().orElse(tracks.get(0));
+            List<Double> boundaries = segmentBoundaries(driver);
+
+            writeFile(outputDir.resolve(INIT_SEGMENT), initSegment(mvhd, tracks));
+
+            int[] cursors = new int[tracks.size()];
+            List<Double> durations = new ArrayList<>();
+            long peakBandwidth = 0;
+            long totalBytes = 0;
+            double totalSeconds = 0;
+            BoxBuffer moof = new BoxBuffer();
+
+            for (int s = 0; s < boundaries.size(); s++) {
+                double segmentEnd = s + 1 < boundaries.size() ? boundaries.get(s + 1) : Double.MAX_VALUE;
+                int[][] ranges = new int[tracks.size()][];
+                for (int t = 0; t < tracks.size(); t++) {
+                    Mp4Track track = tracks.get(t);
+                    int from = cursors[t];
+                    int to = from;
+                    while (to < track.sampleCount && track.seconds(track.dts[to]) < segmentEnd) {
+                        to++;
+                    }
+                    ranges[t] = new int[] {from, to};
+                    cursors[t] = to;
+                }
+
+                long bytes = writeSegment(in, outputDir.resolve(segmentName(s)), s + 1, tracks, ranges, moof);
+
+                double start = boundaries.get(s);
+                double end = s + 1 < boundaries.size()
+                        ? boundaries.get(s + 1)
+                        : driver.seconds(driver.endTime());
+                double duration = Math.max(end - start, 0.001);
+                durations.add(duration);
+                peakBandwidth = Math.max(peakBandwidth, Math.round(bytes * 8 / duration));
+                totalBytes += bytes;
+                totalSeconds += duration;
+            }
+
+            long averageBandwidth = Math.round(totalBytes * 8 / totalSeconds);
+            writeMediaPlaylist(outputDir.resolve(MEDIA_PLAYLIST), durations);
+            writeMasterPlaylist(outputDir.resolve(MASTER_PLAYLIST), tracks, driver, peakBandwidth, averageBandwidth);
+            return new HlsPackage(durations.size(), totalSeconds, peakBandwidth, averageBandwidth);
+        }
+    }
+
+    private List<Double> segmentBoundaries(Mp4Track driver) {
+        List<Double> boundaries = new ArrayList<>();
+        boundaries.add(driver.seconds(driver.dts[0]));
+        long target = Math.round(targetSeconds * driver.timescale);
+        long segmentStart = driver.dts[0];
+        for (int i = 1; i < driver.sampleCount; i++) {
+            if (driver.isSync(i) && driver.dts[i] - segmentStart >= target) {
+                boundaries.add(driver.seconds(driver.dts[i]));
+                segmentStart = driver.dts[i];
+            }
+        }
+        return boundaries;
+    }
+
+    private static byte[] readMoov(FileChannel in) throws IOException {
+        long size = in.size();
+        long pos = 0;
+        ByteBuffer header = ByteBuffer.allocate(16);
+        while (pos + 8 <= size) {
+            header.clear();
+            in.read(header, pos);
+            byte[] h = header.array();
+            long boxSize = readUInt32(h, 0);
+            int headerSize = 8;
+            if (boxSize == 1) {
+                boxSize = readUInt64(h, 8);
+                headerSize = 16;
+            } else if (boxSize == 0) {
+                boxSize = size - pos;
+            }
+            if (boxSize < headerSize) {
+                break;
+            }
+            if ("moov".equals(fourcc(h, 4))) {
+                long payload = boxSize - headerSize;
+                if (payload > MAX_MOOV_BYTES) {
+                    throw new IOException("moov box is too large");
+                }
+                ByteBuffer moov = ByteBuffer.allocate((int) payload);
+                while (moov.hasRemaining()) {
+                    if (in.read(moov, pos + headerSize + moov.position()) < 0) {
+                        throw new IOException("Truncated moov box");
+                    }
+                }
+                return moov.array();
+            }
+            pos += boxSize;
+        }
+        throw new IOException("No moov box in source");
+    }
+
+    // Returns {payloadStart, payloadEnd, boxStart} of the box starting at pos, or null at the end
+    private static int[] findNextTopLevel(byte[] buf, int pos) {
+        if (pos + 8 > buf.length) {
+            return null;
+        }
+        return findBox(buf, pos, buf.length, fourcc(buf, pos + 4));
+    }
+
+    private static byte[] initSegment(byte[] mvhd, List<Mp4Track> tracks) {
+        BoxBuffer out = new BoxBuffer();
+
+        int ftyp = out.begin("ftyp");
+        out.fourcc("iso6").u32(0).fourcc("iso6").fourcc("iso5").fourcc("mp41");
+        out.end(ftyp);
+
+        int moov = out.begin("moov");
+        out.bytes(mvhd);
+        for (Mp4Track track : tracks) {
+            int trak = out.begin("trak");
+            out.bytes(track.tkhd);
+            int mdia = out.begin("mdia");
+            out.bytes(track.mdhd);
+            out.bytes(track.hdlr);
+            int minf = out.begin("minf");
+            out.bytes(track.minfHeaders);
+            int stbl = out.begin("stbl");
+            out.bytes(track.stsd);
+            emptyTable(out, "stts", 0);
+            emptyTable(out, "stsc", 0);
+            emptyTable(out, "stsz", 1);
+            emptyTable(out, "stco", 0);
+            out.end(stbl);
+            out.end(minf);
+            out.end(mdia);
+            out.end(trak);
+        }
+
+        int mvex = out.begin("mvex");
+        for (Mp4Track track : tracks) {
+            int trex = out.begin("trex");
+            out.u32(0).u32(track.trackId).u32(1).u32(0).u32(0).u32(0);
+            out.end(trex);
+        }
+        out.end(mvex);
+        out.end(moov);
+
+        ByteBuffer bytes = out.asByteBuffer();
+        byte[] result = new byte[bytes.remaining()];
+        bytes.get(result);
+        return result;
+    }
+
+    private static void emptyTable(BoxBuffer out, String type, int extraFields) {
+        int box = out.begin(type);
+        out.u32(0);
+        for (int i = 0; i < extraFields; i++) {
+            out.u32(0);
+        }
+        out.u32(0);
+        out.end(box);
+    }
+
+    private static long writeSegment(FileChannel in, Path target, int sequence, List<Mp4Track> tracks,
+                                     int[][] ranges, BoxBuffer moof) throws IOException {
+        moof.reset();
+        int moofStart = moof.begin("moof");
+        int mfhd = moof.begin("mfhd");
+        moof.u32(0).u32(sequence);
+        moof.end(mfhd);
+
+        int[] dataOffsetFields = new int[tracks.size()];
+        long[] trackBytes = new long[tracks.size()];
+        for (int t = 0; t < tracks.size(); t++) {
+            Mp4Track track = tracks.get(t);
+            int from = ranges[t][0];
+            int to = ranges[t][1];
+            dataOffsetFields[t] = -1;
+            if (to <= from) {
+                continue;
+            }
+
+            int traf = moof.begin("traf");
+            int tfhd = moof.begin("tfhd");
+            moof.u32(0x00020000).u32(track.trackId);
+            moof.end(tfhd);
+
+            int tfdt = moof.begin("tfdt");
+            moof.u32(0x01000000).u64(track.dts[from]);
+            moof.end(tfdt);
+
+            // Version 1 trun: data offset plus per-sample duration, size, flags and signed CTS offset
+            int trun = moof.begin("trun");
+            moof.u32(0x01000F01L).u32(to - from);
+            dataOffsetFields[t] = moof.length();
+            moof.u32(0);
+            for (int i = from; i < to; i++) {
+                moof.u32(track.durations[i] & 0xFFFFFFFFL)
+                        .u32(track.sizes[i] & 0xFFFFFFFFL)
+                        .u32(track.isSync(i) ? SYNC_SAMPLE_FLAGS : NON_SYNC_SAMPLE_FLAGS)
+                        .u32(track.ctsOffset(i) & 0xFFFFFFFFL);
+                trackBytes[t] += track.sizes[i];
+            }
+            moof.end(trun);
+            moof.end(traf);
+        }
+        moof.end(moofStart);
+
+        // Sample data for each track follows the mdat header in track order
+        long dataOffset = moof.length() + 8;
+        long mdatPayload = 0;
+        for (int t = 0; t < tracks.size(); t++) {
+            if (dataOffsetFields[t] >= 0) {
+                moof.patchU32(dataOffsetFields[t], dataOffset + mdatPayload);
+            }
+            mdatPayload += trackBytes[t];
+        }
+
+        try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(out, moof.asByteBuffer());
+            ByteBuffer mdat = ByteBuffer.allocate(8);
+            mdat.putInt((int) (8 + mdatPayload)).put("mdat".getBytes(StandardCharsets.US_ASCII)).flip();
+            writeFully(out, mdat);
+
+            for (int t = 0; t < tracks.size(); t++) {
+                Mp4Track track = tracks.get(t);
+                int i = ranges[t][0];
+                int to = ranges[t][1];
+                // Coalesce samples that sit back to back in the source into one transfer
+                while (i < to) {
+                    long runStart = track.offsets[i];
+                    long runLength = track.sizes[i];
+                    i++;
+                    while (i < to && track.offsets[i] == runStart + runLength) {
+                        runLength += track.sizes[i];
+                        i++;
+                    }
+                    transferFully(in, runStart, runLength, out);
+                }
+            }
+        }
+        return moof.length() + 8 + mdatPayload;
+    }
+
+    private static void writeMediaPlaylist(Path target, List<Double> durations) throws IOException {
+        long targetDuration = 1;
+        for (double duration : durations) {
+            targetDuration = Math.max(targetDuration, (long) Math.ceil(duration));
+        }
+
+        try (Writer out = Files.newBufferedWriter(target, StandardCharsets.UTF_8)) {
+            out.write("#EXTM3U\n");
+            out.write("#EXT-X-VERSION:7\n");
+            out.write("#EXT-X-TARGETDURATION:" + targetDuration + "\n");
+            out.write("#EXT-X-MEDIA-SEQUENCE:0\n");
+            out.write("#EXT-X-PLAYLIST-TYPE:VOD\n");
+            out.write("#EXT-X-INDEPENDENT-SEGMENTS\n");
+            out.write("#EXT-X-MAP:URI=\"" + INIT_SEGMENT + "\"\n");
+            for (int i = 0; i < durations.size(); i++) {
+                out.write(String.format(Locale.ROOT, "#EXTINF:%.3f,\n", durations.get(i)));
+                out.write(segmentName(i) + "\n");
+            }
+            out.write("#EXT-X-ENDLIST\n");
+        }
+    }
+
+    private static void writeMasterPlaylist(Path target, List<Mp4Track> tracks, Mp4Track driver,
+                                            long peakBandwidth, long averageBandwidth) throws IOException {
+        StringBuilder attributes = new StringBuilder()
+                .append("BANDWIDTH=").append(peakBandwidth)
+                .append(",AVERAGE-BANDWIDTH=").append(averageBandwidth);
+        if (driver.isVideo() && driver.width > 0 && driver.height > 0) {
+            attributes.append(",RESOLUTION=").append(driver.width).append('x').append(driver.height);
+        }
+
+        // CODECS is only advertised when every track's codec could be identified
+        List<String> codecs = new ArrayList<>();
+        for (Mp4Track track : tracks) {
+            if (track.codec == null) {
+                codecs = null;
+                break;
+            }
+            codecs.add(track.codec);
+        }
+        if (codecs != null) {
+            attributes.append(",CODECS=\"").append(String.join(",", codecs)).append('"');
+        }
+
+        try (Writer out = Files.newBufferedWriter(target, StandardCharsets.UTF_8)) {
+            out.write("#EXTM3U\n");
+            out.write("#EXT-X-VERSION:7\n");
+            out.write("#EXT-X-INDEPENDENT-SEGMENTS\n");
+            out.write("#EXT-X-STREAM-INF:" + attributes + "\n");
+            out.write(MEDIA_PLAYLIST + "\n");
+        }
+    }
+
+    private static void writeFile(Path target, byte[] data) throws IOException {
+        Files.write(target, data);
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer data) throws IOException {
+        while (data.hasRemaining()) {
+            out.write(data);
+        }
+    }
+
+    private static void transferFully(FileChannel in, long position, long count, FileChannel out) throws IOException {
+        while (count > 0) {
+            long sent = in.transferTo(position, count, out);
+            if (sent <= 0) {
+                throw new IOException("Source ended before sample data");
+            }
+            position += sent;
+            count -= sent;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+
+package com.cloud.play.app.media;
+
+import java.nio.charset.StandardCharsets;
+
+// Read helpers for ISO-BMFF box structures held in a byte array
+final class IsoBoxes {
+
+    private IsoBoxes() {
+    }
+
+    // Returns {payloadStart, payloadEnd, boxStart} of the first child box of the given type, or null
+    static int[] findBox(byte[] buf, int start, int end, String type) {
+        int pos = start;
+        while (pos + 8 <= end) {
+            long size = readUInt32(buf, pos);
+            int headerSize = 8;
+            if (size == 1) {
+                if (pos + 16 > end) {
+                    return null;
+                }
+                size = readUInt64(buf, pos + 8);
+                headerSize = 16;
+            } else if (size == 0) {
+                size = end - pos;
+            }
+            if (size < headerSize || pos + size > end) {
+                return null;
+            }
+            if (type.equals(fourcc(buf, pos + 4))) {
+                return new int[] {pos + headerSize, (int) (pos + size), pos};
+            }
+            pos += (int) size;
+        }
+        return null;
+    }
+
+    static String fourcc(byte[] buf, int pos) {
+        return new String(buf, pos, 4, StandardCharsets.US_ASCII);
+    }
+
+    static int readUInt16(byte[] buf, int pos) {
+        return ((buf[pos] & 0xFF) << 8) | (buf[pos + 1] & 0xFF);
+    }
+
+    static long readUInt32(byte[] buf, int pos) {
+        return ((long) (buf[pos] & 0xFF) << 24)
+                | ((buf[pos + 1] & 0xFF) << 16)
+                | ((buf[pos + 2] & 0xFF) << 8)
+                | (buf[pos + 3] & 0xFF);
+    }
+
+    static long readUInt64(byte[] buf, int pos) {
+        return (readUInt32(buf, pos) << 32) | readUInt32(buf, pos + 4);
+    }
+}
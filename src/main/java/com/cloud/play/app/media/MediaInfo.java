@@ -0,0 +1,44 @@
+
+package com.cloud.play.app.media;
+
+public class MediaInfo {
+    private final String container;
+    private final double durationSeconds;
+    private final int width;
+    private final int height;
+    private final String videoCodec;
+    private final long bitrate;
+
+    public MediaInfo(String container, double durationSeconds, int width, int height, String videoCodec, long bitrate) {
+        this.container = container;
+        this.durationSeconds = durationSeconds;
+        this.width = width;
+        this.height = height;
+        this.videoCodec = videoCodec;
+        this.bitrate = bitrate;
+    }
+
+    public String getContainer() {
+        return container;
+    }
+
+    public double getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public String getVideoCodec() {
+        return videoCodec;
+    }
+
+    public long getBitrate() {
+        return bitrate;
+    }
+}
@@ -0,0 +1,397 @@
+
+package com.cloud.play.app.media;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static com.cloud.play.app.media.IsoBoxes.findBox;
+import static com.cloud.play.app.media.IsoBoxes.fourcc;
+import static com.cloud.play.app.media.IsoBoxes.readUInt16;
+import static com.cloud.play.app.media.IsoBoxes.readUInt32;
+import static com.cloud.play.app.media.IsoBoxes.readUInt64;
+
+/**
+ * Incremental container probe for MP4/ISO-BMFF and WebM/Matroska.
+ *
+ * Bytes are pushed in as they stream past. For MP4 only the top-level box headers are
+ * inspected and the moov box is kept (wherever it sits in the file); for WebM only a
+ * bounded prefix holding the EBML header, Info and Tracks is kept. Media payload is
+ * never buffered.
+ */
+public class MediaProbe {
+
+    private static final int SNIFF_BYTES = 12;
+    private static final int MAX_MOOV_BYTES = 16 * 1024 * 1024;
+    private static final int MAX_WEBM_HEADER_BYTES = 1024 * 1024;
+
+    private static final int EBML_ID = 0x1A45DFA3;
+    private static final int EBML_DOC_TYPE = 0x4282;
+    private static final int SEGMENT_ID = 0x18538067;
+    private static final int INFO_ID = 0x1549A966;
+    private static final int TIMECODE_SCALE_ID = 0x2AD7B1;
+    private static final int DURATION_ID = 0x4489;
+    private static final int TRACKS_ID = 0x1654AE6B;
+    private static final int TRACK_ENTRY_ID = 0xAE;
+    private static final int TRACK_TYPE_ID = 0x83;
+    private static final int CODEC_ID = 0x86;
+    private static final int VIDEO_ID = 0xE0;
+    private static final int PIXEL_WIDTH_ID = 0xB0;
+    private static final int PIXEL_HEIGHT_ID = 0xBA;
+    private static final int CLUSTER_ID = 0x1F43B675;
+
+    private enum Format {
+        UNKNOWN,
+        MP4,
+        WEBM,
+        UNSUPPORTED
+    }
+
+    private Format format = Format.UNKNOWN;
+    private final byte[] sniff = new byte[SNIFF_BYTES];
+    private int sniffed;
+    private long totalBytes;
+
+    // MP4 top-level box walker
+    private final byte[] boxHeader = new byte[16];
+    private int headerFill;
+    private int headerNeeded = 8;
+    private boolean inHeader = true;
+    private long boxRemaining;
+    private byte[] moov;
+    private int moovFill;
+    private boolean mp4Done;
+
+    // WebM header prefix
+    private byte[] webmPrefix;
+    private int webmFill;
+
+    public void update(byte[] b, int off, int len) {
+        totalBytes += len;
+
+        if (format == Format.UNKNOWN) {
+            int n = Math.min(len, SNIFF_BYTES - sniffed);
+            System.arraycopy(b, off, sniff, sniffed, n);
+            sniffed += n;
+            off += n;
+            len -= n;
+            if (sniffed < SNIFF_BYTES) {
+                return;
+            }
+            detectFormat();
+            feed(sniff, 0, sniffed);
+        }
+
+        feed(b, off, len);
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public Optional<MediaInfo> result() {
+        if (format == Format.UNKNOWN && sniffed > 0) {
+            detectFormat();
+            feed(sniff, 0, sniffed);
+        }
+
+        if (format == Format.MP4 && moov != null && moovFill == moov.length) {
+            return parseMoov();
+        }
+        if (format == Format.WEBM && webmPrefix != null) {
+            return parseWebm();
+        }
+        return Optional.empty();
+    }
+
+    private void detectFormat() {
+        if (sniffed >= 8 && "ftyp".equals(fourcc(sniff, 4))) {
+            format = Format.MP4;
+        } else if (sniffed >= 4 && readUInt32(sniff, 0) == (EBML_ID & 0xFFFFFFFFL)) {
+            format = Format.WEBM;
+            webmPrefix = new byte[MAX_WEBM_HEADER_BYTES];
+        } else {
+            format = Format.UNSUPPORTED;
+        }
+    }
+
+    private void feed(byte[] b, int off, int len) {
+        if (format == Format.MP4) {
+            feedMp4(b, off, len);
+        } else if (format == Format.WEBM) {
+            int n = Math.min(len, webmPrefix.length - webmFill);
+            System.arraycopy(b, off, webmPrefix, webmFill, n);
+            webmFill += n;
+        }
+    }
+
+    private void feedMp4(byte[] b, int off, int len) {
+        while (len > 0 && !mp4Done) {
+            if (inHeader) {
+                int n = Math.min(len, headerNeeded - headerFill);
+                System.arraycopy(b, off, boxHeader, headerFill, n);
+                headerFill += n;
+                off += n;
+                len -= n;
+                if (headerFill < headerNeeded) {
+                    return;
+                }
+
+                long size = readUInt32(boxHeader, 0);
+                if (size == 1 && headerNeeded == 8) {
+                    headerNeeded = 16;
+                    continue;
+                }
+                if (size == 1) {
+                    size = readUInt64(boxHeader, 8);
+                } else if (size == 0) {
+                    size = Long.MAX_VALUE;
+                }
+                if (size < headerNeeded) {
+                    mp4Done = true;
+                    return;
+                }
+
+                boxRemaining = size == Long.MAX_VALUE ? size : size - headerNeeded;
+                if ("moov".equals(fourcc(boxHeader, 4)) && boxRemaining <= MAX_MOOV_BYTES) {
+                    moov = new byte[(int) boxRemaining];
+                    moovFill = 0;
+                }
+                inHeader = false;
+                headerFill = 0;
+                headerNeeded = 8;
+                continue;
+            }
+
+            int n = (int) Math.min(len, boxRemaining);
+            if (moov != null && moovFill < moov.length) {
+                System.arraycopy(b, off, moov, moovFill, n);
+                moovFill += n;
+                if (moovFill == moov.length) {
+                    mp4Done = true;
+                }
+            }
+            boxRemaining -= n;
+            off += n;
+            len -= n;
+            if (boxRemaining == 0) {
+                inHeader = true;
+            }
+        }
+    }
+
+    private Optional<MediaInfo> parseMoov() {
+        // Version 0 mvhd needs 20 payload bytes up to its duration, version 1 needs 32
+        int[] mvhd = findBox(moov, 0, moov.length, "mvhd");
+        if (mvhd == null || payloadSize(mvhd) < 20 || (moov[mvhd[0]] == 1 && payloadSize(mvhd) < 32)) {
+            return Optional.empty();
+        }
+
+        long timescale;
+        long duration;
+        if (moov[mvhd[0]] == 1) {
+            timescale = readUInt32(moov, mvhd[0] + 20);
+            duration = readUInt64(moov, mvhd[0] + 24);
+        } else {
+            timescale = readUInt32(moov, mvhd[0] + 12);
+            duration = readUInt32(moov, mvhd[0] + 16);
+        }
+
+        // Fragmented files leave mvhd empty and carry the total in mvex/mehd
+        if (duration == 0 || duration == 0xFFFFFFFFL) {
+            int[] mvex = findBox(moov, 0, moov.length, "mvex");
+            int[] mehd = mvex != null ? findBox(moov, mvex[0], mvex[1], "mehd") : null;
+            if (mehd != null && payloadSize(mehd) >= (moov[mehd[0]] == 1 ? 12 : 8)) {
+                duration = moov[mehd[0]] == 1 ? readUInt64(moov, mehd[0] + 4) : readUInt32(moov, mehd[0] + 4);
+            }
+        }
+
+        int width = 0;
+        int height = 0;
+        String codec = null;
+        int pos = 0;
+        int[] trak;
+        while ((trak = findBox(moov, pos, moov.length, "trak")) != null) {
+            pos = trak[1];
+            int[] mdia = findBox(moov, trak[0], trak[1], "mdia");
+            int[] hdlr = mdia != null ? findBox(moov, mdia[0], mdia[1], "hdlr") : null;
+            if (hdlr == null || payloadSize(hdlr) < 12 || !"vide".equals(fourcc(moov, hdlr[0] + 8))) {
+                continue;
+            }
+
+            int[] tkhd = findBox(moov, trak[0], trak[1], "tkhd");
+            if (tkhd != null && payloadSize(tkhd) >= 8) {
+                width = (int) (readUInt32(moov, tkhd[1] - 8) >>> 16);
+                height = (int) (readUInt32(moov, tkhd[1] - 4) >>> 16);
+            }
+
+            int[] minf = findBox(moov, mdia[0], mdia[1], "minf");
+            int[] stbl = minf != null ? findBox(moov, minf[0], minf[1], "stbl") : null;
+            int[] stsd = stbl != null ? findBox(moov, stbl[0], stbl[1], "stsd") : null;
+            if (stsd != null && payloadSize(stsd) >= 16) {
+                codec = fourcc(moov, stsd[0] + 12);
+                // Visual sample entries carry the coded size 24 bytes after their 8-byte header
+                if ((width == 0 || height == 0) && payloadSize(stsd) >= 44) {
+                    width = readUInt16(moov, stsd[0] + 40);
+                    height = readUInt16(moov, stsd[0] + 42);
+                }
+            }
+            break;
+        }
+
+        double seconds = timescale > 0 ? (double) duration / timescale : 0;
+        return Optional.of(new MediaInfo("mp4", seconds, width, height, codec, bitrate(seconds)));
+    }
+
+    private Optional<MediaInfo> parseWebm() {
+        byte[] buf = webmPrefix;
+        int end = webmFill;
+
+        int[] header = readElement(buf, 0, end);
+        if (header == null || header[0] != EBML_ID) {
+            return Optional.empty();
+        }
+        int[] docType = findElement(buf, header[1], header[2], EBML_DOC_TYPE);
+        String container = docType != null ? readString(buf, docType[1], docType[2]) : "matroska";
+
+        int[] segment = findElement(buf, header[2], end, SEGMENT_ID);
+        if (segment == null) {
+            return Optional.empty();
+        }
+
+        long timecodeScale = 1_000_000L;
+        double rawDuration = 0;
+        int[] info = findElement(buf, segment[1], segment[2], INFO_ID);
+        if (info != null) {
+            int[] scale = findElement(buf, info[1], info[2], TIMECODE_SCALE_ID);
+            if (scale != null) {
+                timecodeScale = readUnsigned(buf, scale[1], scale[2]);
+            }
+            int[] duration = findElement(buf, info[1], info[2], DURATION_ID);
+            if (duration != null) {
+                rawDuration = readFloat(buf, duration[1], duration[2]);
+            }
+        }
+
+        int width = 0;
+        int height = 0;
+        String codec = null;
+        int[] tracks = findElement(buf, segment[1], segment[2], TRACKS_ID);
+        if (tracks != null) {
+            int pos = tracks[1];
+            int[] entry;
+            while ((entry = findElement(buf, pos, tracks[2], TRACK_ENTRY_ID)) != null) {
+                pos = entry[2];
+                int[] type = findElement(buf, entry[1], entry[2], TRACK_TYPE_ID);
+                if (type == null || readUnsigned(buf, type[1], type[2]) != 1) {
+                    continue;
+                }
+                int[] codecId = findElement(buf, entry[1], entry[2], CODEC_ID);
+                codec = codecId != null ? readString(buf, codecId[1], codecId[2]) : null;
+                int[] video = findElement(buf, entry[1], entry[2], VIDEO_ID);
+                if (video != null) {
+                    int[] w = findElement(buf, video[1], video[2], PIXEL_WIDTH_ID);
+                    int[] h = findElement(buf, video[1], video[2], PIXEL_HEIGHT_ID);
+                    width = w != null ? (int) readUnsigned(buf, w[1], w[2]) : 0;
+                    height = h != null ? (int) readUnsigned(buf, h[1], h[2]) : 0;
+                }
+                break;
+            }
+        }
+
+        double seconds = rawDuration * timecodeScale / 1_000_000_000d;
+        return Optional.of(new MediaInfo(container, seconds, width, height, codec, bitrate(seconds)));
+    }
+
+    private static int payloadSize(int[] box) {
+        return box[1] - box[0];
+    }
+
+    private long bitrate(double seconds) {
+        return seconds > 0 ? Math.round(totalBytes * 8 / seconds) : 0;
+    }
+
+    // Returns {id, dataStart, dataEnd} of the EBML element at pos, or null; unknown sizes run to end
+    private static int[] readElement(byte[] buf, int pos, int end) {
+        if (pos >= end) {
+            return null;
+        }
+        int idLength = vintLength(buf[pos]);
+        if (idLength == 0 || idLength > 4 || pos + idLength > end) {
+            return null;
+        }
+        int id = 0;
+        for (int i = 0; i < idLength; i++) {
+            id = (id << 8) | (buf[pos + i] & 0xFF);
+        }
+        pos += idLength;
+
+        if (pos >= end) {
+            return null;
+        }
+        int sizeLength = vintLength(buf[pos]);
+        if (sizeLength == 0 || pos + sizeLength > end) {
+            return null;
+        }
+        long size = buf[pos] & (0xFF >>> sizeLength);
+        boolean unknown = size == (0xFF >>> sizeLength);
+        for (int i = 1; i < sizeLength; i++) {
+            int next = buf[pos + i] & 0xFF;
+            unknown &= next == 0xFF;
+            size = (size << 8) | next;
+        }
+        pos += sizeLength;
+
+        long dataEnd = unknown ? end : Math.min(end, pos + size);
+        return new int[] {id, pos, (int) dataEnd};
+    }
+
+    private static int[] findElement(byte[] buf, int start, int end, int id) {
+        int pos = start;
+        int[] element;
+        while ((element = readElement(buf, pos, end)) != null) {
+            if (element[0] == id) {
+                return element;
+            }
+            if (element[0] == CLUSTER_ID) {
+                return null;
+            }
+            if (element[2] <= pos) {
+                return null;
+            }
+            pos = element[2];
+        }
+        return null;
+    }
+
+    private static int vintLength(byte first) {
+        int b = first & 0xFF;
+        return b == 0 ? 0 : Integer.numberOfLeadingZeros(b) - 23;
+    }
+
+    private static long readUnsigned(byte[] buf, int start, int end) {
+        long value = 0;
+        for (int i = start; i < end && i < start + 8; i++) {
+            value = (value << 8) | (buf[i] & 0xFF);
+        }
+        return value;
+    }
+
+    private static double readFloat(byte[] buf, int start, int end) {
+        if (end - start == 4) {
+            return Float.intBitsToFloat((int) readUInt32(buf, start));
+        }
+        if (end - start == 8) {
+            return Double.longBitsToDouble(readUInt64(buf, start));
+        }
+        return 0;
+    }
+
+    private static String readString(byte[] buf, int start, int end) {
+        int len = end - start;
+        while (len > 0 && buf[start + len - 1] == 0) {
+            len--;
+        }
+        return new String(Arrays.copyOfRange(buf, start, start + len), StandardCharsets.US_ASCII);
+    }
+}
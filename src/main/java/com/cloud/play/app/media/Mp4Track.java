@@ -0,0 +1,332 @@
+
+package com.cloud.play.app.media;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static com.cloud.play.app.media.IsoBoxes.findBox;
+import static com.cloud.play.app.media.IsoBoxes.fourcc;
+import static com.cloud.play.app.media.IsoBoxes.readUInt16;
+import static com.cloud.play.app.media.IsoBoxes.readUInt32;
+import static com.cloud.play.app.media.IsoBoxes.readUInt64;
+
+// One track of a progressive MP4 with its sample table expanded to per-sample arrays
+final class Mp4Track {
+
+    final long trackId;
+    final String handler;
+    final long timescale;
+    final int width;
+    final int height;
+    final String codec;
+
+    // Whole boxes copied verbatim into the fragmented init segment
+    final byte[] tkhd;
+    final byte[] mdhd;
+    final byte[] hdlr;
+    final byte[] minfHeaders;
+    final byte[] stsd;
+
+    final int sampleCount;
+    final long[] offsets;
+    final int[] sizes;
+    final long[] dts;
+    final int[] durations;
+    final int[] ctsOffsets;
+    final boolean[] sync;
+
+    private Mp4Track(byte[] moov, int[] trak, int[] mdia, String handler, long sourceSize) throws IOException {
+        this.handler = handler;
+
+        int[] tkhdBox = require(findBox(moov, trak[0], trak[1], "tkhd"), "tkhd");
+        requirePayload(moov, tkhdBox, 16, 24, "tkhd");
+        this.tkhd = whole(moov, tkhdBox);
+        this.trackId = moov[tkhdBox[0]] == 1 ? readUInt32(moov, tkhdBox[0] + 20) : readUInt32(moov, tkhdBox[0] + 12);
+        this.width = (int) (readUInt32(moov, tkhdBox[1] - 8) >>> 16);
+        this.height = (int) (readUInt32(moov, tkhdBox[1] - 4) >>> 16);
+
+        int[] mdhdBox = require(findBox(moov, mdia[0], mdia[1], "mdhd"), "mdhd");
+        requirePayload(moov, mdhdBox, 16, 24, "mdhd");
+        this.mdhd = whole(moov, mdhdBox);
+        this.timescale = moov[mdhdBox[0]] == 1 ? readUInt32(moov, mdhdBox[0] + 20) : readUInt32(moov, mdhdBox[0] + 12);
+        this.hdlr = whole(moov, require(findBox(moov, mdia[0], mdia[1], "hdlr"), "hdlr"));
+
+        int[] minf = require(findBox(moov, mdia[0], mdia[1], "minf"), "minf");
+        int[] stbl = require(findBox(moov, minf[0], minf[1], "stbl"), "stbl");
+        this.minfHeaders = concatExcept(moov, minf, stbl);
+
+        int[] stsdBox = require(findBox(moov, stbl[0], stbl[1], "stsd"), "stsd");
+        this.stsd = whole(moov, stsdBox);
+        this.codec = codecString(moov, stsdBox);
+
+        // Sample sizes; every count below is checked before it sizes an array, so a corrupt table
+        // fails the video instead of exhausting the heap
+        int[] stsz = require(findBox(moov, stbl[0], stbl[1], "stsz"), "stsz");
+        requirePayload(moov, stsz, 12, 12, "stsz");
+        long fixedSize = readUInt32(moov, stsz[0] + 4);
+        if (fixedSize == 0) {
+            this.sampleCount = entryCount(moov, stsz, 12, 4, "stsz");
+        } else {
+            // No per-sample entries to check against, but the samples must still fit in the file
+            long count = readUInt32(moov, stsz[0] + 8);
+            if (count > sourceSize / fixedSize) {
+                throw new IOException("stsz sample count exceeds the source size");
+            }
+            this.sampleCount = (int) count;
+        }
+        this.sizes = new int[sampleCount];
+        for (int i = 0; i < sampleCount; i++) {
+            sizes[i] = (int) (fixedSize != 0 ? fixedSize : readUInt32(moov, stsz[0] + 12 + i * 4));
+        }
+
+        // Chunk offsets, then sample offsets via sample-to-chunk
+        long[] chunkOffsets;
+        int[] stco = findBox(moov, stbl[0], stbl[1], "stco");
+        if (stco != null) {
+            chunkOffsets = new long[entryCount(moov, stco, 8, 4, "stco")];
+            for (int i = 0; i < chunkOffsets.length; i++) {
+                chunkOffsets[i] = readUInt32(moov, stco[0] + 8 + i * 4);
+            }
+        } else {
+            int[] co64 = require(findBox(moov, stbl[0], stbl[1], "co64"), "stco/co64");
+            chunkOffsets = new long[entryCount(moov, co64, 8, 8, "co64")];
+            for (int i = 0; i < chunkOffsets.length; i++) {
+                chunkOffsets[i] = readUInt64(moov, co64[0] + 8 + i * 8);
+            }
+        }
+
+        int[] stsc = require(findBox(moov, stbl[0], stbl[1], "stsc"), "stsc");
+        int stscCount = entryCount(moov, stsc, 8, 12, "stsc");
+        this.offsets = new long[sampleCount];
+        int sample = 0;
+        for (int e = 0; e < stscCount && sample < sampleCount; e++) {
+            int base = stsc[0] + 8 + e * 12;
+            long firstChunk = readUInt32(moov, base) - 1;
+            long samplesPerChunk = readUInt32(moov, base + 4);
+            long lastChunk = e + 1 < stscCount ? readUInt32(moov, base + 12) - 1 : chunkOffsets.length;
+            for (long c = firstChunk; c < lastChunk && c < chunkOffsets.length && sample < sampleCount; c++) {
+                long position = chunkOffsets[(int) c];
+                for (long s = 0; s < samplesPerChunk && sample < sampleCount; s++) {
+                    offsets[sample] = position;
+                    position += sizes[sample];
+                    sample++;
+                }
+            }
+        }
+        if (sample != sampleCount) {
+            throw new IOException("Sample-to-chunk table does not cover all samples");
+        }
+
+        // Decode times
+        int[] stts = require(findBox(moov, stbl[0], stbl[1], "stts"), "stts");
+        this.dts = new long[sampleCount];
+        this.durations = new int[sampleCount];
+        long time = 0;
+        sample = 0;
+        int sttsCount = entryCount(moov, stts, 8, 8, "stts");
+        for (int e = 0; e < sttsCount && sample < sampleCount; e++) {
+            long count = readUInt32(moov, stts[0] + 8 + e * 8);
+            int delta = (int) readUInt32(moov, stts[0] + 12 + e * 8);
+            for (long s = 0; s < count && sample < sampleCount; s++) {
+                dts[sample] = time;
+                durations[sample] = delta;
+                time += delta;
+                sample++;
+            }
+        }
+
+        // Composition offsets are optional; signed in version 1 and in practice in version 0 too
+        int[] ctts = findBox(moov, stbl[0], stbl[1], "ctts");
+        if (ctts != null) {
+            this.ctsOffsets = new int[sampleCount];
+            sample = 0;
+            int cttsCount = entryCount(moov, ctts, 8, 8, "ctts");
+            for (int e = 0; e < cttsCount && sample < sampleCount; e++) {
+                long count = readUInt32(moov, ctts[0] + 8 + e * 8);
+                int offset = (int) readUInt32(moov, ctts[0] + 12 + e * 8);
+                for (long s = 0; s < count && sample < sampleCount; s++) {
+                    ctsOffsets[sample++] = offset;
+                }
+            }
+        } else {
+            this.ctsOffsets = null;
+        }
+
+        // No sync sample table means every sample is a sync sample
+        int[] stss = findBox(moov, stbl[0], stbl[1], "stss");
+        if (stss != null) {
+            this.sync = new boolean[sampleCount];
+            int stssCount = entryCount(moov, stss, 8, 4, "stss");
+            for (int e = 0; e < stssCount; e++) {
+                long number = readUInt32(moov, stss[0] + 8 + e * 4);
+                if (number >= 1 && number <= sampleCount) {
+                    sync[(int) number - 1] = true;
+                }
+            }
+        } else {
+            this.sync = null;
+        }
+    }
+
+    static Mp4Track parse(byte[] moov, int[] trak, long sourceSize) throws IOException {
+        int[] mdia = findBox(moov, trak[0], trak[1], "mdia");
+        int[] hdlr = mdia != null ? findBox(moov, mdia[0], mdia[1], "hdlr") : null;
+        if (hdlr == null || hdlr[1] - hdlr[0] < 12) {
+            return null;
+        }
+        String handler = fourcc(moov, hdlr[0] + 8);
+        if (!"vide".equals(handler) && !"soun".equals(handler)) {
+            return null;
+        }
+        return new Mp4Track(moov, trak, mdia, handler, sourceSize);
+    }
+
+    boolean isVideo() {
+        return "vide".equals(handler);
+    }
+
+    boolean isSync(int sample) {
+        return sync == null || sync[sample];
+    }
+
+    int ctsOffset(int sample) {
+        return ctsOffsets == null ? 0 : ctsOffsets[sample];
+    }
+
+    double seconds(long time) {
+        return (double) time / timescale;
+    }
+
+    long endTime() {
+        return sampleCount == 0 ? 0 : dts[sampleCount - 1] + durations[sampleCount - 1];
+    }
+
+    private static int[] require(int[] box, String name) throws IOException {
+        if (box == null) {
+            throw new IOException("Missing " + name + " box");
+        }
+        return box;
+    }
+
+    // Version 0 and 1 full boxes carry their fields at different widths
+    private static void requirePayload(byte[] buf, int[] box, int version0, int version1, String name)
+            throws IOException {
+        int size = box[1] - box[0];
+        if (size < 1 || size < (buf[box[0]] == 1 ? version1 : version0)) {
+            throw new IOException("Truncated " + name + " box");
+        }
+    }
+
+    // Entry count of a sample table, checked against the bytes the box actually holds
+    private static int entryCount(byte[] buf, int[] box, int headerSize, int entrySize, String name)
+            throws IOException {
+        int size = box[1] - box[0];
+        if (size < headerSize) {
+            throw new IOException("Truncated " + name + " box");
+        }
+        long count = readUInt32(buf, box[0] + headerSize - 4);
+        if (count > (size - headerSize) / entrySize) {
+            throw new IOException(name + " entry count exceeds the box size");
+        }
+        return (int) count;
+    }
+
+    private static byte[] whole(byte[] buf, int[] box) {
+        return Arrays.copyOfRange(buf, box[2], box[1]);
+    }
+
+    private static byte[] concatExcept(byte[] buf, int[] parent, int[] skip) {
+        byte[] out = new byte[(parent[1] - parent[0]) - (skip[1] - skip[2])];
+        int before = skip[2] - parent[0];
+        System.arraycopy(buf, parent[0], out, 0, before);
+        System.arraycopy(buf, skip[1], out, before, parent[1] - skip[1]);
+        return out;
+    }
+
+    // RFC 6381 codec string for HLS CODECS, or null when it cannot be derived from the headers
+    private static String codecString(byte[] buf, int[] stsd) {
+        int entry = stsd[0] + 8;
+        if (entry + 8 > stsd[1]) {
+            return null;
+        }
+        int entryEnd = (int) Math.min(stsd[1], entry + readUInt32(buf, entry));
+        String format = fourcc(buf, entry + 4);
+
+        if ("avc1".equals(format) || "avc3".equals(format)) {
+            int[] avcC = findBox(buf, entry + 8 + 78, entryEnd, "avcC");
+            if (avcC == null || avcC[1] - avcC[0] < 4) {
+                return null;
+            }
+            return String.format("%s.%02x%02x%02x", format,
+                    buf[avcC[0] + 1] & 0xFF, buf[avcC[0] + 2] & 0xFF, buf[avcC[0] + 3] & 0xFF);
+        }
+
+        if ("mp4a".equals(format)) {
+            int version = readUInt16(buf, entry + 16);
+            int children = entry + 8 + 28 + (version == 1 ? 16 : version == 2 ? 36 : 0);
+            int[] esds = children < entryEnd ? findBox(buf, children, entryEnd, "esds") : null;
+            return esds != null ? aacCodecString(buf, esds[0] + 4, esds[1]) : null;
+        }
+
+        return null;
+    }
+
+    private static String aacCodecString(byte[] buf, int pos, int end) {
+        // ES_Descriptor
+        if (pos >= end || buf[pos++] != 0x03) {
+            return null;
+        }
+        pos = skipDescriptorLength(buf, pos, end);
+        if (pos + 3 > end) {
+            return null;
+        }
+        int flags = buf[pos + 2] & 0xFF;
+        pos += 3;
+        if ((flags & 0x80) != 0) {
+            pos += 2;
+        }
+        if ((flags & 0x40) != 0 && pos < end) {
+            pos += 1 + (buf[pos] & 0xFF);
+        }
+        if ((flags & 0x20) != 0) {
+            pos += 2;
+        }
+
+        // DecoderConfigDescriptor
+        if (pos >= end || buf[pos++] != 0x04) {
+            return null;
+        }
+        pos = skipDescriptorLength(buf, pos, end);
+        if (pos + 13 > end) {
+            return null;
+        }
+        int objectType = buf[pos] & 0xFF;
+        pos += 13;
+        if (objectType != 0x40) {
+            return null;
+        }
+
+        // DecoderSpecificInfo holds the AudioSpecificConfig
+        if (pos >= end || buf[pos++] != 0x05) {
+            return null;
+        }
+        pos = skipDescriptorLength(buf, pos, end);
+        if (pos + 2 > end) {
+            return null;
+        }
+        int audioObjectType = (buf[pos] & 0xFF) >>> 3;
+        if (audioObjectType == 31) {
+            audioObjectType = 32 + (((buf[pos] & 0x07) << 3) | ((buf[pos + 1] & 0xFF) >>> 5));
+        }
+        return "mp4a.40." + audioObjectType;
+    }
+
+    private static int skipDescriptorLength(byte[] buf, int pos, int end) {
+        for (int i = 0; i < 4 && pos < end; i++) {
+            if ((buf[pos++] & 0x80) == 0) {
+                break;
+            }
+        }
+        return pos;
+    }
+}
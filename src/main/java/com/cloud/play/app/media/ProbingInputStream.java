@@ -0,0 +1,60 @@
+
+package com.cloud.play.app.media;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Passes bytes through unchanged while feeding them to a {@link MediaProbe},
+ * so container metadata is collected during the upload instead of in a second pass.
+ */
+public class ProbingInputStream extends FilterInputStream {
+
+    private final MediaProbe probe;
+    private final byte[] single = new byte[1];
+
+    public ProbingInputStream(InputStream in, MediaProbe probe) {
+        super(in);
+        this.probe = probe;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            single[0] = (byte) b;
+            probe.update(single, 0, 1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            probe.update(b, off, n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        // Skipped bytes would never reach the probe, so read them through it instead
+        byte[] buffer = new byte[(int) Math.min(n, 8192)];
+        long remaining = n;
+        while (remaining > 0) {
+            int read = read(buffer, 0, (int) Math.min(remaining, buffer.length));
+            if (read < 0) {
+                break;
+            }
+            remaining -= read;
+        }
+        return n - remaining;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+}
@@ -0,0 +1,74 @@
+package com.cloud.play.app.metrics;
+
+import com.cloud.play.app.broker.OutboundBackpressure;
+import com.cloud.play.app.broker.RoomLaneExecutor;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Queue depths along the STOMP pipeline: messages waiting on the inbound, broker and outbound
+ * channel executors, and frames held in the per-session outbound queues.
+ */
+@Component
+public class BrokerMetrics implements MeterBinder {
+
+    @Autowired
+    @Qualifier("clientInboundChannelExecutor")
+    private ThreadPoolTaskExecutor inboundExecutor;
+
+    @Autowired
+    @Qualifier("brokerChannelExecutor")
+    private ThreadPoolTaskExecutor brokerExecutor;
+
+    @Autowired
+    @Qualifier("clientOutboundChannelExecutor")
+    private ThreadPoolTaskExecutor outboundExecutor;
+
+    @Autowired
+    private OutboundBackpressure outboundBackpressure;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        channelQueue(registry, "inbound", inboundExecutor);
+        channelQueue(registry, "broker", brokerExecutor);
+        channelQueue(registry, "outbound", outboundExecutor);
+
+        Gauge.builder("cloudplay.ws.outbound.queued", outboundBackpressure, OutboundBackpressure::getQueuedFrames)
+                .description("Frames waiting in per-session outbound queues")
+                .register(registry);
+        Gauge.builder("cloudplay.ws.outbound.buffered", outboundBackpressure, OutboundBackpressure::getBufferedBytes)
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("cloudplay.ws.sessions", outboundBackpressure, OutboundBackpressure::getSessionCount)
+                .register(registry);
+        FunctionCounter.builder("cloudplay.ws.evicted", outboundBackpressure, OutboundBackpressure::getEvictedTotal)
+                .description("Sessions closed as slow consumers")
+                .register(registry);
+    }
+
+    private static void channelQueue(MeterRegistry registry, String channel, ThreadPoolTaskExecutor executor) {
+        Gauge.builder("cloudplay.stomp.channel.queued", executor, BrokerMetrics::queuedCount)
+                .tag("channel", channel)
+                .description("Messages waiting for a channel executor thread")
+                .register(registry);
+    }
+
+    private static double queuedCount(ThreadPoolTaskExecutor executor) {
+        // Lane executors keep their own queues; the inherited pool is idle
+        if (executor instanceof RoomLaneExecutor lanes) {
+            return lanes.getQueuedCount();
+        }
+        try {
+            return executor.getThreadPoolExecutor().getQueue().size();
+        } catch (IllegalStateException e) {
+            // Not initialized yet or already shut down
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.cloud.play.app.metrics;
+
+import com.cloud.play.app.wire.BinaryRoomHandler;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Live subscriber count per room, across STOMP room topics and binary sessions. STOMP
+ * subscriptions are tracked from session events because the user registry ignores anonymous
+ * sessions. Only the busiest rooms get their own series, to keep the tag cardinality bounded;
+ * the total covers every room.
+ */
+@Component
+public class RoomSubscriberMetrics {
+
+    private static final Pattern ROOM_TOPIC = Pattern.compile("^/topic/room/([^/]+)$");
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectProvider<BinaryRoomHandler> binaryRoomHandler;
+
+    @Value("${cloudplay.metrics.room-subscribers.max-rooms:50}")
+    private int maxRooms;
+
+    // sessionId -> subscriptionId -> roomId
+    private final ConcurrentHashMap<String, Map<String, String>> subscriptions = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, AtomicInteger> stompCounts = new ConcurrentHashMap<>();
+    private final AtomicInteger total = new AtomicInteger();
+    private MultiGauge perRoom;
+
+    @PostConstruct
+    public void register() {
+        perRoom = MultiGauge.builder("cloudplay.room.subscribers")
+                .description("Subscribers of the busiest rooms")
+                .register(meterRegistry);
+        meterRegistry.gauge("cloudplay.room.subscribers.total", total);
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        String destination = headers.getDestination();
+        if (destination == null || headers.getSessionId() == null || headers.getSubscriptionId() == null) {
+            return;
+        }
+        Matcher matcher = ROOM_TOPIC.matcher(destination);
+        if (!matcher.matches()) {
+            return;
+        }
+        String roomId = matcher.group(1);
+        String previous = subscriptions.computeIfAbsent(headers.getSessionId(), id -> new ConcurrentHashMap<>())
+                .put(headers.getSubscriptionId(), roomId);
+        if (previous != null) {
+            decrement(previous);
+        }
+        stompCounts.computeIfAbsent(roomId, id -> new AtomicInteger()).incrementAndGet();
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        Map<String, String> session = headers.getSessionId() != null ? subscriptions.get(headers.getSessionId()) : null;
+        if (session != null && headers.getSubscriptionId() != null) {
+            String roomId = session.remove(headers.getSubscriptionId());
+            if (roomId != null) {
+                decrement(roomId);
+            }
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, String> session = subscriptions.remove(event.getSessionId());
+        if (session != null) {
+            session.values().forEach(this::decrement);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cloudplay.metrics.room-subscribers.refresh-ms:10000}")
+    public void refresh() {
+        Map<String, Integer> counts = new HashMap<>();
+        stompCounts.forEach((roomId, count) -> counts.merge(roomId, count.get(), Integer::sum));
+        BinaryRoomHandler binary = binaryRoomHandler.getIfAvailable();
+        if (binary != null) {
+            for (String roomId : binary.getRoomIds()) {
+                counts.merge(roomId, binary.getSessionCount(roomId), Integer::sum);
+            }
+        }
+
+        List<Map.Entry<String, Integer>> busiest = new ArrayList<>(counts.entrySet());
+        busiest.sort(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder()));
+        List<MultiGauge.Row<?>> rows = new ArrayList<>();
+        int sum = 0;
+        for (Map.Entry<String, Integer> entry : busiest) {
+            sum += entry.getValue();
+            if (rows.size() < maxRooms && entry.getValue() > 0) {
+                rows.add(MultiGauge.Row.of(Tags.of("roomId", entry.getKey()), entry.getValue()));
+            }
+        }
+        // overwrite=true drops series for rooms that fell out of the top list
+        perRoom.register(rows, true);
+        total.set(sum);
+    }
+
+    private void decrement(String roomId) {
+        stompCounts.computeIfPresent(roomId, (id, count) -> count.decrementAndGet() <= 0 ? null : count);
+    }
+}
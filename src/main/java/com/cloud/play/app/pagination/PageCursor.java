@@ -0,0 +1,76 @@
+
+package com.cloud.play.app.pagination;
+
+import org.bson.types.ObjectId;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque keyset position: the sort value and id of the last item on the previous page. Every
+ * keyset in this app sorts on a timestamp, so a sort value that is not one is rejected on decode.
+ */
+public class PageCursor {
+    private final String sortValue;
+    private final String id;
+
+    public PageCursor(String sortValue, String id) {
+        this.sortValue = sortValue;
+        this.id = id;
+    }
+
+    public static PageCursor decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        int separator = raw.lastIndexOf('|');
+        if (separator < 0 || separator == raw.length() - 1) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        String sortValue = raw.substring(0, separator);
+        if (sortValue.isEmpty()) {
+            return new PageCursor(null, raw.substring(separator + 1));
+        }
+        // Fail here as a bad request rather than as a parse error deep inside the query
+        parseTime(sortValue);
+        return new PageCursor(sortValue, raw.substring(separator + 1));
+    }
+
+    public String encode() {
+        String raw = (sortValue != null ? sortValue : "") + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String getSortValue() {
+        return sortValue;
+    }
+
+    public LocalDateTime getSortTime() {
+        return sortValue != null ? parseTime(sortValue) : null;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    // Ids generated by Mongo are stored as ObjectId, so range comparisons must use that type
+    public Object getIdValue() {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+
+    private static LocalDateTime parseTime(String value) {
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,18 @@
+
+package com.cloud.play.app.pagination;
+
+public final class PageLimits {
+
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    private PageLimits() {
+    }
+
+    public static int clamp(Integer requested) {
+        if (requested == null) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.max(1, Math.min(MAX_LIMIT, requested));
+    }
+}
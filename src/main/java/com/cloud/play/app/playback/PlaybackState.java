@@ -0,0 +1,66 @@
+package com.cloud.play.app.playback;
+
+/**
+ * Immutable playback state of one room. The media position is recorded at an anchor instant on
+ * the {@link ServerClock}; while playing, anyone can extrapolate the current position from it.
+ */
+public final class PlaybackState {
+    private final long version;
+    private final boolean playing;
+    private final long positionMs;
+    private final long anchorMillis;
+    private final double rate;
+
+    private PlaybackState(long version, boolean playing, long positionMs, long anchorMillis, double rate) {
+        this.version = version;
+        this.playing = playing;
+        this.positionMs = positionMs;
+        this.anchorMillis = anchorMillis;
+        this.rate = rate;
+    }
+
+    public static PlaybackState initial(long nowMillis) {
+        return new PlaybackState(0, false, 0, nowMillis, 1.0);
+    }
+
+    public long positionAt(long nowMillis) {
+        if (!playing) {
+            return positionMs;
+        }
+        return positionMs + Math.round(Math.max(0, nowMillis - anchorMillis) * rate);
+    }
+
+    public PlaybackState play(long nowMillis, Long atPositionMs, Double newRate) {
+        long position = atPositionMs != null ? atPositionMs : positionAt(nowMillis);
+        return new PlaybackState(version + 1, true, position, nowMillis, newRate != null ? newRate : rate);
+    }
+
+    public PlaybackState pause(long nowMillis, Long atPositionMs) {
+        long position = atPositionMs != null ? atPositionMs : positionAt(nowMillis);
+        return new PlaybackState(version + 1, false, position, nowMillis, rate);
+    }
+
+    public PlaybackState seek(long nowMillis, long toPositionMs) {
+        return new PlaybackState(version + 1, playing, toPositionMs, nowMillis, rate);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public boolean isPlaying() {
+        return playing;
+    }
+
+    public long getPositionMs() {
+        return positionMs;
+    }
+
+    public long getAnchorMillis() {
+        return anchorMillis;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+}
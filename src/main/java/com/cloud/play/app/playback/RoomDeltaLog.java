@@ -0,0 +1,62 @@
+package com.cloud.play.app.playback;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Fixed-size ring of the playback deltas most recently broadcast to a room, each kept in its
+ * encoded form and tagged with its state version, so a reconnecting client can be replayed only
+ * what it missed.
+ */
+public final class RoomDeltaLog {
+    private final long[] versions;
+    private final byte[][] payloads;
+    private int next;
+    private int size;
+    // Highest version that has fallen out of the ring; older clients need a snapshot
+    private long evictedUpTo;
+    private long latestVersion;
+    private volatile long lastAppendMillis;
+
+    public RoomDeltaLog(int capacity) {
+        versions = new long[Math.max(1, capacity)];
+        payloads = new byte[versions.length][];
+    }
+
+    public synchronized void append(long version, byte[] payload) {
+        if (size == versions.length) {
+            evictedUpTo = versions[next];
+        } else {
+            size++;
+        }
+        versions[next] = version;
+        payloads[next] = payload;
+        next = (next + 1) % versions.length;
+        latestVersion = Math.max(latestVersion, version);
+        lastAppendMillis = ServerClock.nowMillis();
+    }
+
+    /**
+     * Deltas newer than the given version, oldest first, or empty when the ring no longer covers
+     * that version (or never saw it, e.g. after a server restart reset the counter).
+     */
+    public synchronized Optional<List<byte[]>> since(long version) {
+        if (version < evictedUpTo || version > latestVersion) {
+            return Optional.empty();
+        }
+        List<byte[]> missed = new ArrayList<>();
+        int start = (next - size + versions.length) % versions.length;
+        for (int i = 0; i < size; i++) {
+            int slot = (start + i) % versions.length;
+            if (versions[slot] > version) {
+                missed.add(payloads[slot]);
+            }
+        }
+        return Optional.of(missed);
+    }
+
+    public long getLastAppendMillis() {
+        return lastAppendMillis;
+    }
+}
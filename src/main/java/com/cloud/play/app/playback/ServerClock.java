@@ -0,0 +1,17 @@
+package com.cloud.play.app.playback;
+
+/**
+ * Millisecond clock that advances with System.nanoTime() but is aligned to the epoch once at
+ * startup, so host clock adjustments never make playback anchors jump backwards.
+ */
+public final class ServerClock {
+    private static final long ORIGIN_MILLIS = System.currentTimeMillis();
+    private static final long ORIGIN_NANOS = System.nanoTime();
+
+    private ServerClock() {
+    }
+
+    public static long nowMillis() {
+        return ORIGIN_MILLIS + (System.nanoTime() - ORIGIN_NANOS) / 1_000_000L;
+    }
+}
@@ -0,0 +1,14 @@
+
+package com.cloud.play.app.repository;
+
+import com.cloud.play.app.entity.UploadJobEntity;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface UploadJobRepository extends MongoRepository<UploadJobEntity, String> {
+
+    List<UploadJobEntity> findByStatusAndOwnerOrderByCreatedAtAsc(UploadJobEntity.Status status, String owner);
+}
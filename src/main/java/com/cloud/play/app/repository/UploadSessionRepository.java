@@ -0,0 +1,15 @@
+
+package com.cloud.play.app.repository;
+
+import com.cloud.play.app.entity.UploadSessionEntity;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface UploadSessionRepository extends MongoRepository<UploadSessionEntity, String> {
+
+    List<UploadSessionEntity> findByUpdatedAtBefore(LocalDateTime cutoff);
+}
@@ -0,0 +1,13 @@
+
+package com.cloud.play.app.repository;
+
+import com.cloud.play.app.entity.VideoEntity;
+import com.cloud.play.app.pagination.PageCursor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface VideoRepositoryCustom {
+
+    List<VideoEntity> findPage(LocalDateTime createdFrom, LocalDateTime createdTo, PageCursor after, int limit);
+}
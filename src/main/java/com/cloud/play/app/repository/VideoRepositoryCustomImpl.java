@@ -0,0 +1,54 @@
+
+package com.cloud.play.app.repository;
+
+import com.cloud.play.app.entity.VideoEntity;
+import com.cloud.play.app.pagination.PageCursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class VideoRepositoryCustomImpl implements VideoRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public List<VideoEntity> findPage(LocalDateTime createdFrom, LocalDateTime createdTo, PageCursor after, int limit) {
+        List<Criteria> filters = new ArrayList<>();
+        if (createdFrom != null || createdTo != null) {
+            Criteria range = Criteria.where("createdAt");
+            if (createdFrom != null) {
+                range = range.gte(createdFrom);
+            }
+            if (createdTo != null) {
+                range = range.lt(createdTo);
+            }
+            filters.add(range);
+        }
+
+        // Newest first; (createdAt, _id) is the keyset so equal timestamps still page deterministically
+        if (after != null && after.getSortValue() != null) {
+            LocalDateTime lastCreated = after.getSortTime();
+            filters.add(new Criteria().orOperator(
+                    Criteria.where("createdAt").lt(lastCreated),
+                    new Criteria().andOperator(
+                            Criteria.where("createdAt").is(lastCreated),
+                            Criteria.where("id").lt(after.getIdValue()))));
+        }
+
+        Query query = new Query();
+        if (!filters.isEmpty()) {
+            query.addCriteria(new Criteria().andOperator(filters.toArray(new Criteria[0])));
+        }
+        query.with(Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id")));
+        query.limit(limit);
+
+        return mongoTemplate.find(query, VideoEntity.class);
+    }
+}
@@ -0,0 +1,157 @@
+
+package com.cloud.play.app.service;
+
+import com.cloud.play.app.entity.VideoEntity;
+import com.cloud.play.app.media.HlsSegmenter;
+import com.cloud.play.app.repository.VideoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+@Service
+public class HlsPackagingService {
+
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_READY = "READY";
+    public static final String STATUS_FAILED = "FAILED";
+
+    private static final Pattern OUTPUT_FILE = Pattern.compile("[A-Za-z0-9_]+\\.(m3u8|m4s|mp4)");
+
+    @Autowired
+    private VideoRepository videoRepository;
+    
+    @Autowired
+    private VideoService videoService;
+    
+    @Autowired
+    @Qualifier("packagingExecutor")
+    private ThreadPoolTaskExecutor packagingExecutor;
+
+    @Value("${cloudplay.hls.enabled:true}")
+    private boolean enabled;
+
+    @Value("${cloudplay.hls.output-dir:./data/hls}")
+    private String outputDir;
+
+    @Value("${cloudplay.hls.segment-seconds:6}")
+    private double segmentSeconds;
+
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    public void schedule(VideoEntity video) {
+        // Packaging reads the source from disk, so only videos stored on this node qualify
+        if (!enabled || videoService.getLocalFile(video).isEmpty()) {
+            return;
+        }
+        video.setHlsStatus(STATUS_PENDING);
+        videoService.saveVideo(video);
+        tryDispatch(video.getId());
+    }
+
+    public Optional<Path> resolveFile(String videoId, String fileName) {
+        if (!OUTPUT_FILE.matcher(fileName).matches()) {
+            return Optional.empty();
+        }
+        Path file = videoDir(videoId).resolve(fileName).normalize();
+        if (!file.startsWith(baseDir()) || !Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        return Optional.of(file);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${cloudplay.hls.resubmit-interval-ms:30000}")
+    public void resubmitPending() {
+        for (VideoEntity video : videoRepository.findByHlsStatus(STATUS_PENDING)) {
+            // Another node's upload stays PENDING for the node that holds its source file
+            if (inFlight.contains(video.getId()) || videoService.getLocalFile(video).isEmpty()) {
+                continue;
+            }
+            if (!tryDispatch(video.getId())) {
+                break;
+            }
+        }
+    }
+
+    private boolean tryDispatch(String videoId) {
+        if (!inFlight.add(videoId)) {
+            return true;
+        }
+        try {
+            packagingExecutor.execute(() -> {
+                try {
+                    process(videoId);
+                } finally {
+                    inFlight.remove(videoId);
+                }
+            });
+            return true;
+        } catch (TaskRejectedException e) {
+            // Stays PENDING and is picked up by the next resubmit pass
+            inFlight.remove(videoId);
+            return false;
+        }
+    }
+
+    private void process(String videoId) {
+        Optional<VideoEntity> videoOpt = videoService.getVideoById(videoId);
+        if (videoOpt.isEmpty() || !STATUS_PENDING.equals(videoOpt.get().getHlsStatus())) {
+            return;
+        }
+
+        VideoEntity video = videoOpt.get();
+        Optional<Path> source = videoService.getLocalFile(video);
+        if (source.isEmpty()) {
+            // Not stored on this node; leave it PENDING rather than failing another node's work
+            return;
+        }
+        Path target = videoDir(videoId);
+        Path staging = baseDir().resolve(videoId + ".tmp");
+
+        try {
+            // Build into a staging directory so clients never see a half-written package
+            FileSystemUtils.deleteRecursively(staging);
+            new HlsSegmenter(segmentSeconds).segment(source.get(), staging);
+            FileSystemUtils.deleteRecursively(target);
+            Files.move(staging, target, StandardCopyOption.ATOMIC_MOVE);
+
+            video.setHlsStatus(STATUS_READY);
+            video.setHlsManifestUrl("/api/videos/" + videoId + "/hls/" + HlsSegmenter.MASTER_PLAYLIST);
+        } catch (IOException | RuntimeException e) {
+            // Malformed input surfaces as runtime errors from the segmenter; either way it must not stay PENDING
+            video.setHlsStatus(STATUS_FAILED);
+            try {
+                FileSystemUtils.deleteRecursively(staging);
+            } catch (IOException ignored) {
+                // Overwritten on the next attempt
+            }
+        }
+
+        videoService.saveVideo(video);
+    }
+
+    private Path baseDir() {
+        return Paths.get(outputDir).toAbsolutePath().normalize();
+    }
+
+    private Path videoDir(String videoId) {
+        return baseDir().resolve(videoId).normalize();
+    }
+}
@@ -0,0 +1,32 @@
+package com.cloud.play.app.service;
+
+import com.cloud.play.app.playback.PlaybackState;
+
+/**
+ * Published whenever a room's playback state is broadcast to STOMP viewers, so other
+ * transports can forward the same state to their own sessions. Carries the JSON delta as
+ * broadcast when there was one, so listeners can reuse the bytes.
+ */
+public class PlaybackBroadcastEvent {
+    private final String roomId;
+    private final PlaybackState state;
+    private final byte[] json;
+
+    public PlaybackBroadcastEvent(String roomId, PlaybackState state, byte[] json) {
+        this.roomId = roomId;
+        this.state = state;
+        this.json = json;
+    }
+
+    public String getRoomId() {
+        return roomId;
+    }
+
+    public PlaybackState getState() {
+        return state;
+    }
+
+    public byte[] getJson() {
+        return json;
+    }
+}
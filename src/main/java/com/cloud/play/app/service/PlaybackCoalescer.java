@@ -0,0 +1,168 @@
+package com.cloud.play.app.service;
+
+import com.cloud.play.app.broker.RoomBroadcaster;
+import com.cloud.play.app.dto.PlaybackDelta;
+import com.cloud.play.app.playback.PlaybackState;
+import com.cloud.play.app.playback.ServerClock;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sits between playback commands and the room broadcast. Commands always update the room clock at
+ * once, but a room is broadcast at most once per window with whatever state is current at flush
+ * time, and only when that state differs from what viewers last received. Each sender is also held
+ * to a token bucket on the broadcasts it triggers: an over-limit change is deferred until the
+ * sender's next token, never dropped, so the room always ends on the sender's latest seek.
+ */
+@Service
+public class PlaybackCoalescer {
+
+    // Two playing states whose extrapolated positions differ by less than this are the same to a viewer
+    private static final long POSITION_TOLERANCE_MS = 50;
+
+    @Autowired
+    private PlaybackService playbackService;
+
+    @Autowired
+    private RoomBroadcaster roomBroadcaster;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${cloudplay.playback.coalesce-window-ms:50}")
+    private long windowMs;
+
+    @Value("${cloudplay.playback.sender-rate-per-second:10}")
+    private double senderRate;
+
+    @Value("${cloudplay.playback.sender-burst:20}")
+    private double senderBurst;
+
+    @Value("${cloudplay.playback.idle-minutes:720}")
+    private long idleMinutes;
+
+    private final Set<String> dirtyRooms = ConcurrentHashMap.newKeySet();
+    private final Set<String> deferredRooms = ConcurrentHashMap.newKeySet();
+    private final ConcurrentHashMap<String, PlaybackState> lastBroadcast = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, TokenBucket> senders = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "playback-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Records that a sender changed the room. Within the sender's budget this arms the normal
+     * window flush; over it, one deferred flush is armed for when the sender earns its next token,
+     * and it broadcasts whatever the room state is by then.
+     */
+    public void changed(String roomId, String sessionId) {
+        long waitNanos = sessionId == null ? 0
+                : senders.computeIfAbsent(sessionId, id -> new TokenBucket(senderBurst))
+                        .takeOrWait(senderRate, senderBurst);
+        if (waitNanos <= 0) {
+            changed(roomId);
+        } else if (deferredRooms.add(roomId)) {
+            flusher.schedule(() -> {
+                deferredRooms.remove(roomId);
+                changed(roomId);
+            }, Math.max(waitNanos, TimeUnit.MILLISECONDS.toNanos(windowMs)), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void changed(String roomId) {
+        // The first change in a window arms the flush; later ones just ride along
+        if (dirtyRooms.add(roomId)) {
+            if (windowMs <= 0) {
+                flush(roomId);
+            } else {
+                flusher.schedule(() -> flush(roomId), windowMs, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    // For broadcasts sent outside this path (scheduled START), so later comparisons start from it
+    public void markBroadcast(String roomId, PlaybackState state) {
+        lastBroadcast.put(roomId, state);
+        eventPublisher.publishEvent(new PlaybackBroadcastEvent(roomId, state, null));
+    }
+
+    public void release(String sessionId) {
+        senders.remove(sessionId);
+    }
+
+    @EventListener
+    public void onSessionDisconnect(SessionDisconnectEvent event) {
+        release(event.getSessionId());
+    }
+
+    @Scheduled(fixedDelayString = "${cloudplay.playback.evict-interval-ms:600000}")
+    public void evictIdleRooms() {
+        long cutoff = ServerClock.nowMillis() - TimeUnit.MINUTES.toMillis(idleMinutes);
+        lastBroadcast.values().removeIf(state -> state.getAnchorMillis() < cutoff);
+    }
+
+    @PreDestroy
+    public void stop() {
+        flusher.shutdownNow();
+    }
+
+    private void flush(String roomId) {
+        dirtyRooms.remove(roomId);
+        PlaybackState current = playbackService.getState(roomId);
+        PlaybackState previous = lastBroadcast.get(roomId);
+        if (previous != null && sameForViewers(previous, current)) {
+            return;
+        }
+        lastBroadcast.put(roomId, current);
+        try {
+            byte[] json = roomBroadcaster.encode(PlaybackDelta.from(current));
+            roomBroadcaster.sendJson("/topic/room/" + roomId + "/playback", json);
+            eventPublisher.publishEvent(new PlaybackBroadcastEvent(roomId, current, json));
+        } catch (RuntimeException e) {
+            // A failed send must not kill the flush thread; the next change rebroadcasts the state
+            lastBroadcast.remove(roomId, current);
+        }
+    }
+
+    private static boolean sameForViewers(PlaybackState a, PlaybackState b) {
+        if (a.isPlaying() != b.isPlaying() || a.getRate() != b.getRate()) {
+            return false;
+        }
+        long now = ServerClock.nowMillis();
+        return Math.abs(a.positionAt(now) - b.positionAt(now)) < POSITION_TOLERANCE_MS;
+    }
+
+    private static final class TokenBucket {
+        private double tokens;
+        private long refilledAt = System.nanoTime();
+
+        TokenBucket(double initial) {
+            tokens = initial;
+        }
+
+        // 0 if a token was taken, otherwise the nanos until one is available
+        synchronized long takeOrWait(double ratePerSecond, double capacity) {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - refilledAt) / 1e9 * ratePerSecond);
+            refilledAt = now;
+            if (tokens < 1) {
+                return ratePerSecond > 0 ? (long) ((1 - tokens) / ratePerSecond * 1e9) : TimeUnit.SECONDS.toNanos(1);
+            }
+            tokens -= 1;
+            return 0;
+        }
+    }
+}
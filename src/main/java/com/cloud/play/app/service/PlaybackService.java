@@ -0,0 +1,92 @@
+package com.cloud.play.app.service;
+
+import com.cloud.play.CloudPlay.repository.RoomRepository;
+import com.cloud.play.app.dto.PlaybackCommand;
+import com.cloud.play.app.playback.PlaybackState;
+import com.cloud.play.app.playback.ServerClock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+@Service
+public class PlaybackService {
+
+    private static final double MIN_RATE = 0.25;
+    private static final double MAX_RATE = 4.0;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Value("${cloudplay.playback.idle-minutes:720}")
+    private long idleMinutes;
+
+    // Node-local; in a cluster a room's commands and syncs must all land on the same node
+    private final ConcurrentHashMap<String, PlaybackState> states = new ConcurrentHashMap<>();
+
+    public PlaybackState getState(String roomId) {
+        PlaybackState state = states.get(roomId);
+        return state != null ? state : PlaybackState.initial(ServerClock.nowMillis());
+    }
+
+    public Optional<PlaybackState> play(String roomId, PlaybackCommand command) {
+        Long position = command != null ? clampPosition(command.getPositionMs()) : null;
+        Double rate = command != null ? clampRate(command.getRate()) : null;
+        return transition(roomId, (state, now) -> state.play(now, position, rate));
+    }
+
+    public Optional<PlaybackState> pause(String roomId, PlaybackCommand command) {
+        Long position = command != null ? clampPosition(command.getPositionMs()) : null;
+        return transition(roomId, (state, now) -> state.pause(now, position));
+    }
+
+    public Optional<PlaybackState> seek(String roomId, PlaybackCommand command) {
+        Long position = command != null ? clampPosition(command.getPositionMs()) : null;
+        if (position == null) {
+            return Optional.empty();
+        }
+        return transition(roomId, (state, now) -> state.seek(now, position));
+    }
+
+    public Optional<PlaybackState> start(String roomId) {
+        return transition(roomId, (state, now) -> state.play(now, 0L, null));
+    }
+
+    @Scheduled(fixedDelayString = "${cloudplay.playback.evict-interval-ms:600000}")
+    public void evictIdleRooms() {
+        long cutoff = ServerClock.nowMillis() - TimeUnit.MINUTES.toMillis(idleMinutes);
+        states.values().removeIf(state -> state.getAnchorMillis() < cutoff);
+    }
+
+    private Optional<PlaybackState> transition(String roomId, Transition transition) {
+        // Only rooms that exist get a clock; the lookup stays outside the per-key lock
+        if (!states.containsKey(roomId) && !roomRepository.existsById(roomId)) {
+            return Optional.empty();
+        }
+        PlaybackState next = states.compute(roomId, (id, previous) -> {
+            long now = ServerClock.nowMillis();
+            return transition.apply(previous != null ? previous : PlaybackState.initial(now), now);
+        });
+        return Optional.of(next);
+    }
+
+    private static Long clampPosition(Long positionMs) {
+        return positionMs != null ? Math.max(0L, positionMs) : null;
+    }
+
+    private static Double clampRate(Double rate) {
+        if (rate == null || rate.isNaN()) {
+            return null;
+        }
+        return Math.min(MAX_RATE, Math.max(MIN_RATE, rate));
+    }
+
+    @FunctionalInterface
+    private interface Transition {
+        PlaybackState apply(PlaybackState state, long nowMillis);
+    }
+}
@@ -0,0 +1,241 @@
+
+package com.cloud.play.app.service;
+
+import com.cloud.play.app.dto.UploadJobDTO;
+import com.cloud.play.app.dto.UploadSessionDTO;
+import com.cloud.play.app.entity.UploadSessionEntity;
+import com.cloud.play.app.repository.UploadSessionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.CRC32C;
+
+@Service
+public class ResumableUploadService {
+
+    private static final int MIN_CHUNK_SIZE = 256 * 1024;
+    private static final int MAX_CHUNK_SIZE = 32 * 1024 * 1024;
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final long COMPLETION_STALE_MINUTES = 10;
+
+    @Autowired
+    private UploadSessionRepository uploadSessionRepository;
+    
+    @Autowired
+    private UploadJobService uploadJobService;
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${cloudplay.upload.staging-dir:./data/upload-staging}")
+    private String stagingDir;
+
+    @Value("${cloudplay.upload.default-chunk-size:8388608}")
+    private int defaultChunkSize;
+
+    @Value("${cloudplay.upload.session-ttl-minutes:1440}")
+    private long sessionTtlMinutes;
+
+    public UploadSessionDTO initSession(String originalFilename, String title, String description,
+                                        long totalBytes, Integer requestedChunkSize) throws IOException {
+        if (totalBytes <= 0) {
+            throw new IllegalArgumentException("totalBytes must be positive");
+        }
+
+        int chunkSize = requestedChunkSize != null ? requestedChunkSize : defaultChunkSize;
+        chunkSize = Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, chunkSize));
+        long chunkCount = (totalBytes + chunkSize - 1) / chunkSize;
+        if (chunkCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("File is too large for chunk size " + chunkSize);
+        }
+
+        UploadSessionEntity session = new UploadSessionEntity();
+        session.setOriginalFilename(originalFilename);
+        session.setTitle(title);
+        session.setDescription(description);
+        session.setTotalBytes(totalBytes);
+        session.setChunkSize(chunkSize);
+        session.setChunkCount((int) chunkCount);
+        session = uploadSessionRepository.save(session);
+
+        Path staging = Paths.get(stagingDir).toAbsolutePath().resolve(session.getId());
+        Files.createDirectories(staging.getParent());
+        Files.deleteIfExists(staging);
+        Files.createFile(staging);
+
+        session.setStagingPath(staging.toString());
+        return convertToDTO(uploadSessionRepository.save(session));
+    }
+
+    public Optional<UploadSessionDTO> getSession(String sessionId) {
+        return uploadSessionRepository.findById(sessionId).map(this::convertToDTO);
+    }
+
+    public Optional<UploadSessionDTO> writeChunk(String sessionId, int index, long expectedCrc32c,
+                                                 InputStream body) throws IOException {
+        Optional<UploadSessionEntity> sessionOpt = uploadSessionRepository.findById(sessionId);
+        if (sessionOpt.isEmpty()) {
+            return Optional.empty();
+        }
+
+        UploadSessionEntity session = sessionOpt.get();
+        if (session.getJobId() != null) {
+            throw new IllegalStateException("Upload session is already complete");
+        }
+        if (index < 0 || index >= session.getChunkCount()) {
+            throw new IllegalArgumentException("Chunk index out of range: " + index);
+        }
+        if (session.getReceivedChunks().contains(index)) {
+            // Idempotent retry of a chunk we already have; don't read or write it again
+            return Optional.of(convertToDTO(session));
+        }
+
+        // Each chunk owns a disjoint region of the staging file, so chunks can be written in parallel
+        long offset = (long) index * session.getChunkSize();
+        long expectedLength = session.chunkLength(index);
+        CRC32C crc = new CRC32C();
+        long written = 0;
+
+        try (FileChannel channel = FileChannel.open(Paths.get(session.getStagingPath()), StandardOpenOption.WRITE)) {
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            int n;
+            while ((n = body.read(buffer)) > 0) {
+                if (written + n > expectedLength) {
+                    throw new IllegalArgumentException("Chunk " + index + " is longer than " + expectedLength + " bytes");
+                }
+                crc.update(buffer, 0, n);
+                ByteBuffer src = ByteBuffer.wrap(buffer, 0, n);
+                while (src.hasRemaining()) {
+                    channel.write(src, offset + written + (n - src.remaining()));
+                }
+                written += n;
+            }
+        }
+
+        if (written != expectedLength) {
+            throw new IllegalArgumentException("Chunk " + index + " has " + written + " bytes, expected " + expectedLength);
+        }
+        if (crc.getValue() != expectedCrc32c) {
+            throw new IllegalArgumentException("CRC32C mismatch for chunk " + index);
+        }
+
+        // $addToSet keeps concurrent chunk acknowledgements from overwriting each other
+        UploadSessionEntity updated = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(sessionId)),
+                new Update().addToSet("receivedChunks", index).set("updatedAt", LocalDateTime.now()),
+                FindAndModifyOptions.options().returnNew(true),
+                UploadSessionEntity.class);
+
+        return Optional.ofNullable(updated).map(this::convertToDTO);
+    }
+
+    public Optional<UploadJobDTO> complete(String sessionId) throws IOException {
+        Optional<UploadSessionEntity> sessionOpt = uploadSessionRepository.findById(sessionId);
+        if (sessionOpt.isEmpty()) {
+            return Optional.empty();
+        }
+
+        UploadSessionEntity session = sessionOpt.get();
+        if (session.getJobId() != null) {
+            return uploadJobService.getJob(session.getJobId());
+        }
+
+        List<Integer> missing = missingChunks(session);
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException("Missing chunks: " + missing);
+        }
+
+        // Claim completion atomically; a claim left behind by a crashed node expires after the stale window
+        LocalDateTime now = LocalDateTime.now();
+        UploadSessionEntity claimed = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(sessionId).and("jobId").is(null)
+                        .orOperator(Criteria.where("completingAt").is(null),
+                                Criteria.where("completingAt").lt(now.minusMinutes(COMPLETION_STALE_MINUTES)))),
+                new Update().set("completingAt", now).set("updatedAt", now),
+                FindAndModifyOptions.options().returnNew(true),
+                UploadSessionEntity.class);
+        if (claimed == null) {
+            Optional<UploadSessionEntity> current = uploadSessionRepository.findById(sessionId);
+            if (current.isPresent() && current.get().getJobId() != null) {
+                return uploadJobService.getJob(current.get().getJobId());
+            }
+            throw new IllegalStateException("Upload is already being completed");
+        }
+
+        // The staging file already holds every chunk at its final offset, so assembly is a hand-off
+        UploadJobDTO job;
+        try {
+            job = uploadJobService.submit(Paths.get(claimed.getStagingPath()),
+                    claimed.getOriginalFilename(), claimed.getTitle(), claimed.getDescription());
+        } catch (IOException | RuntimeException e) {
+            // Release the claim so the client can retry
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(sessionId)),
+                    new Update().unset("completingAt"), UploadSessionEntity.class);
+            throw e;
+        }
+
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(sessionId)),
+                new Update().set("jobId", job.getId()).unset("completingAt").set("updatedAt", LocalDateTime.now()),
+                UploadSessionEntity.class);
+        return Optional.of(job);
+    }
+
+    @Scheduled(fixedDelayString = "${cloudplay.upload.session-gc-interval-ms:600000}")
+    public void collectAbandonedSessions() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(sessionTtlMinutes);
+        for (UploadSessionEntity session : uploadSessionRepository.findByUpdatedAtBefore(cutoff)) {
+            try {
+                if (session.getStagingPath() != null) {
+                    Files.deleteIfExists(Paths.get(session.getStagingPath()));
+                }
+            } catch (IOException e) {
+                // Try again on the next pass
+                continue;
+            }
+            uploadSessionRepository.delete(session);
+        }
+    }
+
+    private List<Integer> missingChunks(UploadSessionEntity session) {
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < session.getChunkCount(); i++) {
+            if (!session.getReceivedChunks().contains(i)) {
+                missing.add(i);
+            }
+        }
+        return missing;
+    }
+
+    private UploadSessionDTO convertToDTO(UploadSessionEntity session) {
+        UploadSessionDTO dto = new UploadSessionDTO();
+        dto.setId(session.getId());
+        dto.setTotalBytes(session.getTotalBytes());
+        dto.setChunkSize(session.getChunkSize());
+        dto.setChunkCount(session.getChunkCount());
+        List<Integer> received = new ArrayList<>(session.getReceivedChunks());
+        received.sort(null);
+        dto.setReceivedChunks(received);
+        dto.setMissingChunks(missingChunks(session));
+        dto.setJobId(session.getJobId());
+        return dto;
+    }
+}
@@ -0,0 +1,219 @@
+package com.cloud.play.app.service;
+
+import com.cloud.play.CloudPlay.entity.RoomEntity;
+import com.cloud.play.CloudPlay.repository.RoomRepository;
+import com.cloud.play.app.broker.RoomBroadcaster;
+import com.cloud.play.app.dto.PlaybackDelta;
+import com.cloud.play.app.dto.ScheduleMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fires START for scheduled rooms from a delay queue. Only rooms due within the horizon are held
+ * in memory; an indexed range query tops the queue up, and createRoom adds new rooms directly.
+ * In a cluster every node queues every room. The start is claimed on the room document so it is
+ * broadcast exactly once; the shard's lease holder and the node that scheduled the room race for
+ * that claim on time, and everyone else only joins in once the owner looks to have failed.
+ */
+@Service
+public class RoomStartScheduler {
+
+    private static final long RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private RoomBroadcaster roomBroadcaster;
+
+    @Autowired
+    private PlaybackService playbackService;
+
+    @Autowired
+    private ScheduleLeaseService leaseService;
+
+    @Autowired
+    private PlaybackCoalescer playbackCoalescer;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${cloudplay.schedule.horizon-minutes:60}")
+    private long horizonMinutes;
+
+    @Value("${cloudplay.schedule.late-start-seconds:60}")
+    private long lateStartSeconds;
+
+    // Past this lateness any node may claim the start, covering rooms the owner has not loaded yet
+    @Value("${cloudplay.schedule.takeover-seconds:15}")
+    private long takeoverSeconds;
+
+    // Source of truth for what is queued; queue entries that no longer match are stale
+    private final ConcurrentHashMap<String, LocalDateTime> scheduled = new ConcurrentHashMap<>();
+    private final DelayQueue<DueRoom> queue = new DelayQueue<>();
+    // Rooms scheduled through this node; the owner may not have loaded them yet, so don't wait for it
+    private final Set<String> localRooms = ConcurrentHashMap.newKeySet();
+    private volatile Thread dispatcher;
+    private Timer startLateness;
+    private Counter missedStarts;
+
+    @PostConstruct
+    public void registerMeters() {
+        startLateness = Timer.builder("cloudplay.schedule.start.lateness")
+                .description("Time from a room's scheduled start to its START broadcast")
+                .register(meterRegistry);
+        missedStarts = Counter.builder("cloudplay.schedule.start.missed")
+                .description("Scheduled starts dropped for arriving past the late-start window")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Thread thread = new Thread(this::dispatchLoop, "room-start");
+        thread.setDaemon(true);
+        dispatcher = thread;
+        thread.start();
+        loadUpcoming();
+    }
+
+    @PreDestroy
+    public void stop() {
+        Thread thread = dispatcher;
+        dispatcher = null;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cloudplay.schedule.refresh-interval-ms:300000}",
+               initialDelayString = "${cloudplay.schedule.refresh-interval-ms:300000}")
+    public void loadUpcoming() {
+        LocalDateTime now = LocalDateTime.now();
+        for (RoomEntity room : roomRepository.findScheduledBetween(
+                now.minusSeconds(lateStartSeconds), now.plusMinutes(horizonMinutes))) {
+            // A refresh inside the late-start window still sees rooms that already fired
+            if (room.getScheduledTime() != null && room.getScheduledTime().equals(room.getStartedScheduleTime())) {
+                continue;
+            }
+            enqueue(room.getId(), room.getScheduledTime());
+        }
+    }
+
+    public void schedule(String roomId, LocalDateTime scheduledTime) {
+        if (scheduledTime == null) {
+            scheduled.remove(roomId);
+            localRooms.remove(roomId);
+            return;
+        }
+        // Marked before queueing so a room that is already due never sees itself as remote
+        localRooms.add(roomId);
+        if (!enqueue(roomId, scheduledTime)) {
+            localRooms.remove(roomId);
+        }
+    }
+
+    private boolean enqueue(String roomId, LocalDateTime scheduledTime) {
+        if (scheduledTime == null) {
+            return false;
+        }
+
+        // Late starts inside the grace window still fire; anything past the horizon waits for a refresh
+        LocalDateTime now = LocalDateTime.now();
+        if (scheduledTime.isBefore(now.minusSeconds(lateStartSeconds))
+                || scheduledTime.isAfter(now.plusMinutes(horizonMinutes))) {
+            return false;
+        }
+
+        LocalDateTime previous = scheduled.put(roomId, scheduledTime);
+        if (!scheduledTime.equals(previous)) {
+            long delayNanos = Math.max(0L, Duration.between(now, scheduledTime).toNanos());
+            queue.put(new DueRoom(roomId, scheduledTime, System.nanoTime() + delayNanos));
+        }
+        return true;
+    }
+
+    private void dispatchLoop() {
+        while (dispatcher == Thread.currentThread()) {
+            DueRoom due;
+            try {
+                due = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            if (!due.scheduledTime.equals(scheduled.get(due.roomId))) {
+                continue;
+            }
+            LocalDateTime now = LocalDateTime.now();
+            if (!leaseService.owns(due.roomId) && !localRooms.contains(due.roomId)
+                    && now.isBefore(due.scheduledTime.plusSeconds(takeoverSeconds))) {
+                // Another node holds the shard; check again shortly in case it fails over to us
+                queue.put(new DueRoom(due.roomId, due.scheduledTime, System.nanoTime() + RETRY_NANOS));
+                continue;
+            }
+
+            if (scheduled.remove(due.roomId, due.scheduledTime)) {
+                localRooms.remove(due.roomId);
+            }
+            try {
+                if (!now.isBefore(due.scheduledTime.plusSeconds(lateStartSeconds))) {
+                    missedStarts.increment();
+                } else if (roomRepository.claimScheduledStart(due.roomId, due.scheduledTime)) {
+                    fire(due.roomId);
+                    startLateness.record(Duration.between(due.scheduledTime, LocalDateTime.now()));
+                }
+            } catch (RuntimeException e) {
+                // A failed claim or broadcast must not stop the dispatcher for every other room
+            }
+        }
+    }
+
+    private void fire(String roomId) {
+        ScheduleMessage message = new ScheduleMessage("START", roomId, null, null);
+        // The scheduled start also starts the authoritative clock from the beginning
+        playbackService.start(roomId).ifPresent(state -> {
+            message.setPlayback(PlaybackDelta.from(state));
+            playbackCoalescer.markBroadcast(roomId, state);
+        });
+        roomBroadcaster.send("/topic/room/" + roomId, message);
+    }
+
+    private static final class DueRoom implements Delayed {
+        private final String roomId;
+        private final LocalDateTime scheduledTime;
+        private final long dueNanos;
+
+        DueRoom(String roomId, LocalDateTime scheduledTime, long dueNanos) {
+            this.roomId = roomId;
+            this.scheduledTime = scheduledTime;
+            this.dueNanos = dueNanos;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueNanos, ((DueRoom) other).dueNanos);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.cloud.play.app.service;
+
+import com.cloud.play.CloudPlay.DTO.RoomDTO;
+import com.cloud.play.CloudPlay.service.RoomService;
+import com.cloud.play.app.broker.RoomBroadcaster;
+import com.cloud.play.app.cache.BoundedTtlCache;
+import com.cloud.play.app.dto.PlaybackDelta;
+import com.cloud.play.app.playback.PlaybackState;
+import com.cloud.play.app.playback.RoomDeltaLog;
+import com.cloud.play.app.playback.ServerClock;
+import com.cloud.play.app.trace.RequestTracer;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+@Service
+public class RoomSyncService {
+
+    @Autowired
+    private RoomService roomService;
+
+    @Autowired
+    private VideoService videoService;
+
+    @Autowired
+    private PlaybackService playbackService;
+
+    @Autowired
+    private RoomBroadcaster roomBroadcaster;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private RequestTracer tracer;
+
+    @Value("${cloudplay.sync.delta-log-size:64}")
+    private int deltaLogSize;
+
+    @Value("${cloudplay.playback.idle-minutes:720}")
+    private long idleMinutes;
+
+    // Rooms only change on creation, so joins and reconnects are answered without Mongo
+    private final BoundedTtlCache<String, RoomDTO> roomCache;
+
+    // Fed only by broadcasts this node emits, so it is as node-local as the playback state
+    private final ConcurrentHashMap<String, RoomDeltaLog> deltaLogs = new ConcurrentHashMap<>();
+
+    public RoomSyncService(
+            @Value("${cloudplay.cache.room.max-size:10000}") int cacheMaxSize,
+            @Value("${cloudplay.cache.room.ttl-seconds:60}") long cacheTtlSeconds) {
+        this.roomCache = new BoundedTtlCache<>(cacheMaxSize, cacheTtlSeconds * 1000);
+    }
+
+    /**
+     * Full room state for a joining client, in the JSON shape of ScheduleMessage. The video is
+     * spliced in from its cached serialized form and the rest is streamed field by field, so a
+     * SYNC reply involves no object-mapping work.
+     */
+    public byte[] encodeSync(String roomId) {
+        Optional<RoomDTO> room;
+        int span = tracer.begin("sync.room");
+        try {
+            room = roomCache.get(roomId, roomService::getRoomById);
+        } finally {
+            tracer.end(span);
+        }
+        span = tracer.begin("sync.encode");
+        ByteArrayOutputStream out = new ByteArrayOutputStream(512);
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            json.writeStartObject();
+            json.writeStringField("type", room.isPresent() ? "SYNC" : "ERROR");
+            json.writeStringField("roomId", roomId);
+            json.writeFieldName("video");
+            Optional<SerializableString> video = room.map(RoomDTO::getCurrentVideo)
+                    .flatMap(current -> videoService.getSerializedDTO(current.getId()));
+            if (video.isPresent()) {
+                json.writeRawValue(video.get());
+            } else {
+                json.writeNull();
+            }
+            json.writeFieldName("scheduledTime");
+            if (room.isPresent() && room.get().getScheduledTime() != null) {
+                json.writeString(room.get().getScheduledTime().toString());
+            } else {
+                json.writeNull();
+            }
+            json.writeFieldName("playback");
+            if (room.isPresent()) {
+                writePlayback(json, playbackService.getState(roomId));
+            } else {
+                json.writeNull();
+            }
+            json.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            tracer.end(span);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Catch-up for a reconnecting client: the deltas broadcast after its last seen version when
+     * the room's ring still holds them all, otherwise a full SYNC snapshot.
+     */
+    public byte[] encodeResume(String roomId, Long lastVersion) {
+        RoomDeltaLog log = deltaLogs.get(roomId);
+        Optional<List<byte[]>> missed = log != null && lastVersion != null
+                ? log.since(lastVersion) : Optional.empty();
+        if (missed.isEmpty()) {
+            return encodeSync(roomId);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            json.writeStartObject();
+            json.writeStringField("type", "DELTAS");
+            json.writeStringField("roomId", roomId);
+            json.writeArrayFieldStart("deltas");
+            for (byte[] delta : missed.get()) {
+                json.writeRawValue(new String(delta, StandardCharsets.UTF_8));
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    @EventListener
+    public void onPlaybackBroadcast(PlaybackBroadcastEvent event) {
+        byte[] json = event.getJson() != null
+                ? event.getJson() : roomBroadcaster.encode(PlaybackDelta.from(event.getState()));
+        deltaLogs.computeIfAbsent(event.getRoomId(), id -> new RoomDeltaLog(deltaLogSize))
+                .append(event.getState().getVersion(), json);
+    }
+
+    @Scheduled(fixedDelayString = "${cloudplay.playback.evict-interval-ms:600000}")
+    public void evictIdleRooms() {
+        long cutoff = ServerClock.nowMillis() - TimeUnit.MINUTES.toMillis(idleMinutes);
+        deltaLogs.values().removeIf(log -> log.getLastAppendMillis() < cutoff);
+    }
+
+    // Mirrors PlaybackDelta's short keys
+    private static void writePlayback(JsonGenerator json, PlaybackState state) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("v", state.getVersion());
+        json.writeBooleanField("p", state.isPlaying());
+        json.writeNumberField("pos", state.getPositionMs());
+        json.writeNumberField("at", state.getAnchorMillis());
+        json.writeNumberField("r", state.getRate());
+        json.writeEndObject();
+    }
+}
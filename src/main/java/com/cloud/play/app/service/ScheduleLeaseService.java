@@ -0,0 +1,145 @@
+package com.cloud.play.app.service;
+
+import com.cloud.play.app.entity.ScheduleLeaseEntity;
+import com.cloud.play.app.entity.ScheduleNodeEntity;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Splits scheduled-start work across nodes. Rooms hash onto a fixed number of shards, and each
+ * shard is owned through a Mongo lease that its holder renews on every heartbeat. A node takes at
+ * most its fair share of shards, so leases rebalance as nodes join, leave or stop heartbeating.
+ * <p>
+ * The heartbeat runs on its own thread rather than on Spring's shared scheduler, where a slow
+ * {@code @Scheduled} job elsewhere could delay renewal until the leases lapse.
+ */
+@Service
+public class ScheduleLeaseService {
+
+    // Stop acting on a lease this long before it lapses, to absorb clock skew between nodes
+    private static final long SAFETY_MILLIS = 1000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${cloudplay.schedule.shards:16}")
+    private int shardCount;
+
+    @Value("${cloudplay.schedule.lease-seconds:10}")
+    private long leaseSeconds;
+
+    @Value("${cloudplay.schedule.heartbeat-ms:3000}")
+    private long heartbeatMillis;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    // Shard -> lease expiry (epoch millis) for the shards this node currently holds
+    private final ConcurrentHashMap<Integer, Long> leases = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService heartbeats = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "schedule-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public boolean owns(String roomId) {
+        Long expiry = leases.get(shardOf(roomId));
+        return expiry != null && System.currentTimeMillis() < expiry - SAFETY_MILLIS;
+    }
+
+    // Once the context is up, as @Scheduled would, so the first beat runs after indexes are ensured
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        heartbeats.scheduleWithFixedDelay(() -> {
+            try {
+                heartbeat();
+            } catch (RuntimeException e) {
+                // Mongo unavailable; an exception would cancel the schedule, so retry on the next beat
+            }
+        }, 0, heartbeatMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void heartbeat() {
+        long now = System.currentTimeMillis();
+        Date expiresAt = new Date(now + leaseSeconds * 1000);
+
+        mongoTemplate.upsert(Query.query(Criteria.where("_id").is(nodeId)),
+                new Update().set("expiresAt", expiresAt), ScheduleNodeEntity.class);
+        long liveNodes = Math.max(1, mongoTemplate.count(
+                Query.query(Criteria.where("expiresAt").gt(new Date(now))), ScheduleNodeEntity.class));
+        long fairShare = (shardCount + liveNodes - 1) / liveNodes;
+
+        // Renew held shards first so they never lapse while this node is busy acquiring others
+        for (Integer shard : List.copyOf(leases.keySet())) {
+            if (leases.size() > fairShare) {
+                release(shard);
+            } else if (!tryAcquire(shard, now, expiresAt)) {
+                leases.remove(shard);
+            }
+        }
+        for (int shard = 0; shard < shardCount && leases.size() < fairShare; shard++) {
+            if (!leases.containsKey(shard)) {
+                tryAcquire(shard, now, expiresAt);
+            }
+        }
+    }
+
+    // Stops renewing without releasing anything, so the leases lapse as if this node had hung
+    void stopHeartbeat() {
+        heartbeats.shutdownNow();
+    }
+
+    @PreDestroy
+    public void releaseAll() throws InterruptedException {
+        // A beat still in flight could re-acquire what is released below
+        heartbeats.shutdownNow();
+        heartbeats.awaitTermination(5, TimeUnit.SECONDS);
+        // Hand shards over immediately instead of letting other nodes wait out the lease
+        for (Integer shard : List.copyOf(leases.keySet())) {
+            release(shard);
+        }
+        mongoTemplate.remove(Query.query(Criteria.where("_id").is(nodeId)), ScheduleNodeEntity.class);
+    }
+
+    private int shardOf(String roomId) {
+        return Math.floorMod(roomId.hashCode(), shardCount);
+    }
+
+    private boolean tryAcquire(int shard, long now, Date expiresAt) {
+        Query query = Query.query(Criteria.where("_id").is(shard).orOperator(
+                Criteria.where("owner").is(nodeId),
+                Criteria.where("expiresAt").lt(new Date(now))));
+        try {
+            // No match on an existing shard turns the upsert into a duplicate-key insert
+            mongoTemplate.upsert(query, new Update().set("owner", nodeId).set("expiresAt", expiresAt),
+                    ScheduleLeaseEntity.class);
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+        leases.put(shard, expiresAt.getTime());
+        return true;
+    }
+
+    private void release(int shard) {
+        leases.remove(shard);
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(shard).and("owner").is(nodeId)),
+                new Update().set("expiresAt", new Date(0)), ScheduleLeaseEntity.class);
+    }
+}
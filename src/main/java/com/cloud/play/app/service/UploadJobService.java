@@ -0,0 +1,313 @@
+
+package com.cloud.play.app.service;
+
+import com.cloud.play.app.dto.UploadJobDTO;
+import com.cloud.play.app.entity.UploadJobEntity;
+import com.cloud.play.app.entity.VideoEntity;
+import com.cloud.play.app.repository.UploadJobRepository;
+import com.cloud.play.app.storage.ProgressInputStream;
+import com.cloud.play.app.storage.StoredVideo;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class UploadJobService {
+
+    private static final long PROGRESS_INTERVAL_MS = 500;
+
+    @Autowired
+    private UploadJobRepository uploadJobRepository;
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    private VideoService videoService;
+    
+    @Autowired
+    private HlsPackagingService hlsPackagingService;
+    
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+    
+    @Autowired
+    @Qualifier("uploadExecutor")
+    private ThreadPoolTaskExecutor uploadExecutor;
+
+    @Value("${cloudplay.upload.spool-dir:./data/upload-spool}")
+    private String spoolDir;
+
+    // Must stay the same across restarts so a node can recover the jobs spooled on its disk
+    @Value("${cloudplay.node-id:}")
+    private String configuredNodeId;
+
+    private String nodeId;
+
+    // Jobs currently queued in or running on the executor of this node
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void resolveNodeId() throws IOException {
+        if (!configuredNodeId.isBlank()) {
+            nodeId = configuredNodeId.trim();
+            return;
+        }
+        // Not the hostname, which a restarted container does not keep. An id stored next to the
+        // spool files lives exactly as long as the files it identifies
+        Path idFile = Paths.get(spoolDir).toAbsolutePath().resolve(".node-id");
+        if (Files.exists(idFile)) {
+            nodeId = Files.readString(idFile, StandardCharsets.UTF_8).trim();
+        }
+        if (nodeId == null || nodeId.isEmpty()) {
+            nodeId = UUID.randomUUID().toString();
+            Files.createDirectories(idFile.getParent());
+            Files.writeString(idFile, nodeId, StandardCharsets.UTF_8);
+        }
+    }
+
+    public boolean hasCapacity() {
+        return uploadExecutor.getThreadPoolExecutor().getQueue().remainingCapacity() > 0
+                || uploadExecutor.getActiveCount() < uploadExecutor.getMaxPoolSize();
+    }
+
+    public UploadJobDTO submit(MultipartFile file, String title, String description) throws IOException {
+        UploadJobEntity job = createJob(file.getOriginalFilename(), file.getSize(), title, description);
+
+        // Move the request body into a durable spool so a restart can pick the job up again
+        try {
+            Path spool = spoolPathFor(job);
+            file.transferTo(spool);
+            return enqueue(job, spool);
+        } catch (IOException | RuntimeException e) {
+            fail(job, e);
+            throw e;
+        }
+    }
+
+    public UploadJobDTO submit(Path assembledFile, String originalFilename, String title, String description) throws IOException {
+        UploadJobEntity job = createJob(originalFilename, Files.size(assembledFile), title, description);
+
+        try {
+            Path spool = spoolPathFor(job);
+            Files.move(assembledFile, spool, StandardCopyOption.REPLACE_EXISTING);
+            return enqueue(job, spool);
+        } catch (IOException | RuntimeException e) {
+            fail(job, e);
+            throw e;
+        }
+    }
+
+    // A job whose spool never completed must not linger as SPOOLING
+    private void fail(UploadJobEntity job, Exception cause) {
+        job.setStatus(UploadJobEntity.Status.FAILED);
+        job.setError(cause.getMessage());
+        job.setUpdatedAt(LocalDateTime.now());
+        uploadJobRepository.save(job);
+    }
+
+    private UploadJobEntity createJob(String originalFilename, long totalBytes, String title, String description) {
+        UploadJobEntity job = new UploadJobEntity();
+        job.setTitle(title);
+        job.setDescription(description);
+        job.setOriginalFilename(originalFilename);
+        job.setTotalBytes(totalBytes);
+        job.setOwner(nodeId);
+        // Saved as SPOOLING so no resubmit pass can claim it before the spool file is written
+        return uploadJobRepository.save(job);
+    }
+
+    private Path spoolPathFor(UploadJobEntity job) throws IOException {
+        Path spool = Paths.get(spoolDir).toAbsolutePath().resolve(job.getId());
+        Files.createDirectories(spool.getParent());
+        return spool;
+    }
+
+    private UploadJobDTO enqueue(UploadJobEntity job, Path spool) {
+        job.setSpoolPath(spool.toString());
+        job.setStatus(UploadJobEntity.Status.QUEUED);
+        job.setUpdatedAt(LocalDateTime.now());
+        job = uploadJobRepository.save(job);
+
+        // A rejection here only means the job waits in Mongo for the next resubmit pass
+        tryDispatch(job.getId());
+        return convertToDTO(job);
+    }
+
+    public Optional<UploadJobDTO> getJob(String id) {
+        return uploadJobRepository.findById(id).map(this::convertToDTO);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverInterruptedJobs() {
+        // Our RUNNING jobs were cut off by a shutdown; queue them again from their spool files.
+        // Other nodes' jobs are left alone, they may still be running there.
+        uploadJobRepository.findByStatusAndOwnerOrderByCreatedAtAsc(UploadJobEntity.Status.RUNNING, nodeId)
+                .forEach(job -> {
+                    job.setStatus(UploadJobEntity.Status.QUEUED);
+                    job.setBytesProcessed(0);
+                    job.setUpdatedAt(LocalDateTime.now());
+                    uploadJobRepository.save(job);
+                });
+        // A SPOOLING job never got its complete file, so there is nothing to retry
+        uploadJobRepository.findByStatusAndOwnerOrderByCreatedAtAsc(UploadJobEntity.Status.SPOOLING, nodeId)
+                .forEach(job -> {
+                    job.setStatus(UploadJobEntity.Status.FAILED);
+                    job.setError("Upload interrupted before it was spooled");
+                    job.setUpdatedAt(LocalDateTime.now());
+                    uploadJobRepository.save(job);
+                });
+        resubmitQueuedJobs();
+    }
+
+    @Scheduled(fixedDelayString = "${cloudplay.upload.resubmit-interval-ms:5000}")
+    public void resubmitQueuedJobs() {
+        // Only jobs spooled on this node; the file does not exist anywhere else
+        for (UploadJobEntity job : uploadJobRepository.findByStatusAndOwnerOrderByCreatedAtAsc(
+                UploadJobEntity.Status.QUEUED, nodeId)) {
+            if (inFlight.contains(job.getId())) {
+                continue;
+            }
+            if (!tryDispatch(job.getId())) {
+                break;
+            }
+        }
+    }
+
+    private boolean tryDispatch(String jobId) {
+        if (!inFlight.add(jobId)) {
+            return true;
+        }
+        try {
+            uploadExecutor.execute(() -> {
+                try {
+                    process(jobId);
+                } finally {
+                    inFlight.remove(jobId);
+                }
+            });
+            return true;
+        } catch (TaskRejectedException e) {
+            inFlight.remove(jobId);
+            return false;
+        }
+    }
+
+    private void process(String jobId) {
+        // Atomic QUEUED -> RUNNING claim, so a job runs once even if two passes dispatch it
+        UploadJobEntity job = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("id").is(jobId)
+                        .and("status").is(UploadJobEntity.Status.QUEUED)
+                        .and("owner").is(nodeId)),
+                new Update().set("status", UploadJobEntity.Status.RUNNING).set("updatedAt", LocalDateTime.now()),
+                FindAndModifyOptions.options().returnNew(true),
+                UploadJobEntity.class);
+        if (job == null) {
+            return;
+        }
+        publish(job);
+
+        Path spool = job.getSpoolPath() != null ? Paths.get(job.getSpoolPath()) : null;
+        try {
+            if (spool == null) {
+                throw new IOException("Job has no spool file");
+            }
+            StoredVideo stored;
+            UploadJobEntity running = job;
+            long[] lastPublished = {0};
+            try (InputStream in = new ProgressInputStream(Files.newInputStream(spool), bytes -> {
+                long now = System.currentTimeMillis();
+                if (now - lastPublished[0] >= PROGRESS_INTERVAL_MS) {
+                    lastPublished[0] = now;
+                    running.setBytesProcessed(bytes);
+                    saveProgress(jobId, bytes);
+                    publish(running);
+                }
+            })) {
+                stored = videoService.storeVideo(in, job.getOriginalFilename(), job.getTotalBytes());
+            }
+
+            VideoEntity video = videoService.publishVideo(stored, job.getTitle(), job.getDescription());
+            hlsPackagingService.schedule(video);
+
+            job.setStatus(UploadJobEntity.Status.COMPLETED);
+            job.setBytesProcessed(job.getTotalBytes());
+            job.setVideoId(video.getId());
+        } catch (Exception e) {
+            job.setStatus(UploadJobEntity.Status.FAILED);
+            job.setError(e.getMessage());
+        }
+
+        job.setUpdatedAt(LocalDateTime.now());
+        job = uploadJobRepository.save(job);
+        publish(job);
+
+        try {
+            if (spool != null) {
+                Files.deleteIfExists(spool);
+            }
+        } catch (IOException e) {
+            // Leftover spool files are harmless; the job is already finished
+        }
+    }
+
+    // Only the counter is written, so the final save cannot be overtaken by a stale full document
+    private void saveProgress(String jobId, long bytes) {
+        try {
+            mongoTemplate.updateFirst(
+                    Query.query(Criteria.where("id").is(jobId).and("status").is(UploadJobEntity.Status.RUNNING)),
+                    new Update().set("bytesProcessed", bytes).set("updatedAt", LocalDateTime.now()),
+                    UploadJobEntity.class);
+        } catch (RuntimeException e) {
+            // Progress is advisory; a failed write must not abort the upload
+        }
+    }
+
+    private void publish(UploadJobEntity job) {
+        messagingTemplate.convertAndSend("/topic/uploads/" + job.getId(), convertToDTO(job));
+    }
+
+    public UploadJobDTO convertToDTO(UploadJobEntity job) {
+        UploadJobDTO dto = new UploadJobDTO();
+        dto.setId(job.getId());
+        dto.setStatus(job.getStatus().name());
+        dto.setTitle(job.getTitle());
+        dto.setTotalBytes(job.getTotalBytes());
+        dto.setBytesProcessed(job.getBytesProcessed());
+        dto.setProgress(job.getTotalBytes() > 0
+                ? (int) Math.min(100, job.getBytesProcessed() * 100 / job.getTotalBytes())
+                : 0);
+        dto.setVideoId(job.getVideoId());
+        dto.setError(job.getError());
+        dto.setCreatedAt(job.getCreatedAt());
+        dto.setUpdatedAt(job.getUpdatedAt());
+        return dto;
+    }
+}
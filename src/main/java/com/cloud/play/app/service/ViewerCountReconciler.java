@@ -0,0 +1,47 @@
+package com.cloud.play.app.service;
+
+import com.cloud.play.CloudPlay.repository.RoomRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Joins and leaves write the presence document and bump viewerCount as two separate writes, so a
+ * crash or failed write between them leaves the counter off. This periodically recounts it from
+ * room_presence, which stays the source of truth. Each node only rewrites the rooms on the
+ * schedule shards it holds, so every room is corrected by one node per pass.
+ */
+@Service
+public class ViewerCountReconciler {
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private ScheduleLeaseService leaseService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Counter corrections;
+
+    @PostConstruct
+    public void registerMeters() {
+        corrections = Counter.builder("cloudplay.presence.recount.corrected")
+                .description("Room viewer counters found out of step with room_presence and rewritten")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${cloudplay.presence.recount-interval-ms:60000}",
+               initialDelayString = "${cloudplay.presence.recount-interval-ms:60000}")
+    public void recount() {
+        try {
+            corrections.increment(roomRepository.recountViewers(leaseService::owns));
+        } catch (RuntimeException e) {
+            // A failed pass leaves the counters as they were; the next one tries again
+        }
+    }
+}
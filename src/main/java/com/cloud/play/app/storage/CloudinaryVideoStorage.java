@@ -0,0 +1,45 @@
+
+package com.cloud.play.app.storage;
+
+import com.cloudinary.Cloudinary;
+import com.cloudinary.utils.ObjectUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+@Component
+@ConditionalOnProperty(name = "cloudplay.storage.type", havingValue = "cloudinary", matchIfMissing = true)
+public class CloudinaryVideoStorage implements VideoStorage {
+
+    private final Cloudinary cloudinary;
+    private final int chunkSize;
+
+    public CloudinaryVideoStorage(
+            Cloudinary cloudinary,
+            @Value("${cloudplay.storage.cloudinary.chunk-size:6000000}") int chunkSize) {
+        this.cloudinary = cloudinary;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public StoredVideo store(InputStream content, String originalFilename, long contentLength) throws IOException {
+        // uploadLarge reads the stream one chunk at a time, so only chunkSize bytes are buffered
+        try (InputStream in = content) {
+            Map uploadResult = cloudinary.uploader().uploadLarge(in,
+                    ObjectUtils.asMap(
+                            "resource_type", "video",
+                            "chunk_size", chunkSize),
+                    chunkSize);
+
+            Object bytes = uploadResult.get("bytes");
+            return new StoredVideo(
+                    uploadResult.get("public_id").toString(),
+                    uploadResult.get("secure_url").toString(),
+                    bytes instanceof Number ? ((Number) bytes).longValue() : contentLength);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+
+package com.cloud.play.app.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.UUID;
+
+@Component
+@ConditionalOnProperty(name = "cloudplay.storage.type", havingValue = "local")
+public class LocalVideoStorage implements VideoStorage {
+
+    private final Path baseDir;
+
+    public LocalVideoStorage(@Value("${cloudplay.storage.local.base-dir:./data/videos}") String baseDir) throws IOException {
+        this.baseDir = Paths.get(baseDir).toAbsolutePath().normalize();
+        Files.createDirectories(this.baseDir);
+    }
+
+    @Override
+    public StoredVideo store(InputStream content, String originalFilename, long contentLength) throws IOException {
+        String key = UUID.randomUUID() + extensionOf(originalFilename);
+        Path target = baseDir.resolve(key);
+        Path partial = baseDir.resolve(key + ".part");
+
+        // Files.copy streams through a small fixed buffer, so nothing is held on the heap
+        try (InputStream in = content) {
+            Files.copy(in, partial, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+
+        return new StoredVideo(key, target.toUri().toString(), Files.size(target));
+    }
+
+    @Override
+    public Optional<Path> localFile(String storageKey) {
+        if (storageKey == null) {
+            return Optional.empty();
+        }
+        Path path = baseDir.resolve(storageKey).normalize();
+        if (!path.startsWith(baseDir) || !Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+        return Optional.of(path);
+    }
+
+    private static String extensionOf(String filename) {
+        if (filename == null) {
+            return "";
+        }
+        int dot = filename.lastIndexOf('.');
+        if (dot < 0 || dot == filename.length() - 1) {
+            return "";
+        }
+        String ext = filename.substring(dot).toLowerCase(Locale.ROOT);
+        return ext.matches("\\.[a-z0-9]{1,8}") ? ext : "";
+    }
+}
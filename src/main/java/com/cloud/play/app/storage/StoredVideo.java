@@ -0,0 +1,42 @@
+
+package com.cloud.play.app.storage;
+
+import com.cloud.play.app.media.MediaInfo;
+
+public class StoredVideo {
+    private final String storageKey;
+    private final String url;
+    private final long sizeBytes;
+    private final MediaInfo mediaInfo;
+
+    public StoredVideo(String storageKey, String url, long sizeBytes) {
+        this(storageKey, url, sizeBytes, null);
+    }
+
+    public StoredVideo(String storageKey, String url, long sizeBytes, MediaInfo mediaInfo) {
+        this.storageKey = storageKey;
+        this.url = url;
+        this.sizeBytes = sizeBytes;
+        this.mediaInfo = mediaInfo;
+    }
+
+    public StoredVideo withMediaInfo(MediaInfo mediaInfo) {
+        return new StoredVideo(storageKey, url, sizeBytes, mediaInfo);
+    }
+
+    public String getStorageKey() {
+        return storageKey;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public MediaInfo getMediaInfo() {
+        return mediaInfo;
+    }
+}
@@ -0,0 +1,21 @@
+
+package com.cloud.play.app.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Backend that persists uploaded video bytes. Implementations must consume the
+ * stream incrementally so heap use per upload does not depend on the file size.
+ */
+public interface VideoStorage {
+
+    StoredVideo store(InputStream content, String originalFilename, long contentLength) throws IOException;
+
+    // Backends that keep bytes on this node expose the file so it can be served directly
+    default Optional<Path> localFile(String storageKey) {
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,81 @@
+
+package com.cloud.play.app.streaming;
+
+public class ByteRange {
+    private final long start;
+    private final long end;
+
+    public ByteRange(long start, long end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    // Parses a single "bytes=" range against a resource length. Returns null when the header
+    // should be ignored (absent, malformed or multi-range), and throws when it cannot be satisfied.
+    public static ByteRange parse(String header, long length) {
+        if (header == null || !header.startsWith("bytes=")) {
+            return null;
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        if (spec.isEmpty() || spec.indexOf(',') >= 0) {
+            return null;
+        }
+
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                if (last.isEmpty()) {
+                    return null;
+                }
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0 || length == 0) {
+                    throw new UnsatisfiableRangeException(length);
+                }
+                return new ByteRange(Math.max(0, length - suffix), length - 1);
+            }
+
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+            if (start < 0 || end < 0) {
+                return null;
+            }
+            if (start >= length || start > end) {
+                throw new UnsatisfiableRangeException(length);
+            }
+            return new ByteRange(start, end);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    public long getLength() {
+        return end - start + 1;
+    }
+
+    public static class UnsatisfiableRangeException extends RuntimeException {
+        private final long resourceLength;
+
+        public UnsatisfiableRangeException(long resourceLength) {
+            super("Requested range not satisfiable");
+            this.resourceLength = resourceLength;
+        }
+
+        public long getResourceLength() {
+            return resourceLength;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.cloud.play.app.trace;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records every Mongo command as a span. The synchronous driver fires these callbacks on the
+ * calling thread, so repository calls nest under whichever service span issued them without
+ * wrapping each repository.
+ */
+@Component
+public class MongoTraceListener implements CommandListener, MongoClientSettingsBuilderCustomizer {
+
+    private static final String SPAN = "mongo";
+
+    @Autowired
+    private RequestTracer tracer;
+
+    @Override
+    public void customize(MongoClientSettings.Builder builder) {
+        builder.addCommandListener(this);
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        tracer.begin(SPAN, event.getCommandName());
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        tracer.endCurrent(SPAN);
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        tracer.endCurrent(SPAN);
+    }
+}
@@ -0,0 +1,222 @@
+package com.cloud.play.app.trace;
+
+import com.cloud.play.app.dto.SlowTraceDTO;
+import com.cloud.play.app.dto.TraceSpanDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Span recording for single requests. Each thread owns a preallocated buffer of span slots, so
+ * recording a span writes a few array entries and allocates nothing; a trace is only copied out
+ * when its root exceeds the slow threshold. With the sample rate at 0 every call returns after
+ * one field check.
+ *
+ * <p>Usage: {@code int span = tracer.begin("name"); try { ... } finally { tracer.end(span); }}.
+ * Span names should be constants, since the buffer keeps references rather than copies.
+ */
+@Component
+public class RequestTracer {
+
+    public static final int NOT_RECORDING = -1;
+
+    private final double sampleRate;
+    private final long slowThresholdNanos;
+    private final int maxSpans;
+    private final AtomicReferenceArray<SlowTraceDTO> slowTraces;
+    private final AtomicLong slowCount = new AtomicLong();
+    private final ThreadLocal<SpanBuffer> buffers;
+
+    @Autowired
+    public RequestTracer(
+            @Value("${cloudplay.trace.sample-rate:0}") double sampleRate,
+            @Value("${cloudplay.trace.slow-threshold-ms:200}") long slowThresholdMs,
+            @Value("${cloudplay.trace.max-spans:64}") int maxSpans,
+            @Value("${cloudplay.trace.slow-kept:50}") int slowKept) {
+        this.sampleRate = Math.max(0, Math.min(1, sampleRate));
+        this.slowThresholdNanos = slowThresholdMs * 1_000_000L;
+        this.maxSpans = Math.max(2, maxSpans);
+        this.slowTraces = new AtomicReferenceArray<>(Math.max(1, slowKept));
+        this.buffers = ThreadLocal.withInitial(() -> new SpanBuffer(this.maxSpans));
+    }
+
+    // Disabled tracer for code wired outside the container
+    public RequestTracer() {
+        this(0, 200, 64, 1);
+    }
+
+    /**
+     * Starts a trace on this thread if the request is sampled. Returns false when it is not, in
+     * which case every span call until {@link #finish()} is a no-op.
+     */
+    public boolean start(String kind, String name) {
+        if (sampleRate <= 0 || (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+            return false;
+        }
+        SpanBuffer buffer = buffers.get();
+        buffer.reset(kind);
+        buffer.push(name, null);
+        return true;
+    }
+
+    public int begin(String name) {
+        return begin(name, null);
+    }
+
+    public int begin(String name, String detail) {
+        if (sampleRate <= 0) {
+            return NOT_RECORDING;
+        }
+        SpanBuffer buffer = buffers.get();
+        return buffer.active ? buffer.push(name, detail) : NOT_RECORDING;
+    }
+
+    public void end(int span) {
+        if (span == NOT_RECORDING) {
+            return;
+        }
+        SpanBuffer buffer = buffers.get();
+        if (buffer.active) {
+            buffer.pop(span);
+        }
+    }
+
+    // For callbacks that cannot carry the span id, such as driver listeners: ends the innermost
+    // open span if it has this name
+    public void endCurrent(String name) {
+        if (sampleRate <= 0) {
+            return;
+        }
+        SpanBuffer buffer = buffers.get();
+        if (buffer.active && buffer.open >= 0 && buffer.names[buffer.open] == name) {
+            buffer.pop(buffer.open);
+        }
+    }
+
+    /** Ends the trace started by {@link #start}, keeping it if the root was slow. */
+    public void finish() {
+        if (sampleRate <= 0) {
+            return;
+        }
+        SpanBuffer buffer = buffers.get();
+        if (!buffer.active) {
+            return;
+        }
+        // Close anything left open by an exception so the root gets its end time
+        long now = System.nanoTime();
+        while (buffer.open >= 0) {
+            buffer.ends[buffer.open] = now;
+            buffer.open = buffer.parents[buffer.open];
+        }
+        buffer.active = false;
+        if (buffer.ends[0] - buffer.starts[0] >= slowThresholdNanos) {
+            long index = slowCount.getAndIncrement();
+            slowTraces.set((int) (index % slowTraces.length()), buffer.snapshot());
+        }
+    }
+
+    // Most recent slow traces, slowest first
+    public List<SlowTraceDTO> getSlowTraces() {
+        List<SlowTraceDTO> traces = new ArrayList<>();
+        for (int i = 0; i < slowTraces.length(); i++) {
+            SlowTraceDTO trace = slowTraces.get(i);
+            if (trace != null) {
+                traces.add(trace);
+            }
+        }
+        traces.sort(Comparator.comparingLong(SlowTraceDTO::getDurationMicros).reversed());
+        return traces;
+    }
+
+    public long getSlowCount() {
+        return slowCount.get();
+    }
+
+    public boolean isEnabled() {
+        return sampleRate > 0;
+    }
+
+    private static final class SpanBuffer {
+        final String[] names;
+        final String[] details;
+        final long[] starts;
+        final long[] ends;
+        final int[] parents;
+        int size;
+        int open = -1;
+        int dropped;
+        boolean active;
+        String kind;
+        long startedAtMillis;
+
+        SpanBuffer(int capacity) {
+            names = new String[capacity];
+            details = new String[capacity];
+            starts = new long[capacity];
+            ends = new long[capacity];
+            parents = new int[capacity];
+        }
+
+        void reset(String kind) {
+            this.kind = kind;
+            startedAtMillis = System.currentTimeMillis();
+            size = 0;
+            open = -1;
+            dropped = 0;
+            active = true;
+        }
+
+        int push(String name, String detail) {
+            if (size == names.length) {
+                dropped++;
+                return NOT_RECORDING;
+            }
+            int span = size++;
+            names[span] = name;
+            details[span] = detail;
+            parents[span] = open;
+            starts[span] = System.nanoTime();
+            ends[span] = 0;
+            open = span;
+            return span;
+        }
+
+        void pop(int span) {
+            if (span >= size || ends[span] != 0) {
+                return;
+            }
+            long now = System.nanoTime();
+            // Unwind to the span's parent, closing children that were never ended
+            while (open >= span) {
+                ends[open] = now;
+                open = parents[open];
+            }
+        }
+
+        SlowTraceDTO snapshot() {
+            long[] childNanos = new long[size];
+            int[] depths = new int[size];
+            for (int i = 1; i < size; i++) {
+                childNanos[parents[i]] += ends[i] - starts[i];
+                depths[i] = depths[parents[i]] + 1;
+            }
+            List<TraceSpanDTO> spans = new ArrayList<>(size - 1);
+            for (int i = 1; i < size; i++) {
+                long duration = ends[i] - starts[i];
+                spans.add(new TraceSpanDTO(names[i], details[i], depths[i] - 1,
+                        (starts[i] - starts[0]) / 1000, duration / 1000, (duration - childNanos[i]) / 1000));
+            }
+            // Root self time is work outside any span: framework dispatch and response serialization
+            long rootNanos = ends[0] - starts[0];
+            return new SlowTraceDTO(kind, names[0], startedAtMillis, rootNanos / 1000,
+                    (rootNanos - childNanos[0]) / 1000, dropped, spans);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.cloud.play.app.trace;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Root span for inbound STOMP messages, opened on the executor thread that runs the handler so
+ * the @MessageMapping method and everything it calls land in the same trace.
+ */
+@Component
+public class TraceChannelInterceptor implements ExecutorChannelInterceptor {
+
+    @Autowired
+    private RequestTracer tracer;
+
+    @Override
+    public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+        if (tracer.isEnabled()) {
+            String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+            if (destination != null) {
+                tracer.start("stomp", destination);
+            }
+        }
+        return message;
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        tracer.finish();
+    }
+}
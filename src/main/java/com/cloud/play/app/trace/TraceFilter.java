@@ -0,0 +1,41 @@
+package com.cloud.play.app.trace;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Root span for REST calls, covering the whole servlet dispatch including response serialization.
+ */
+@Component
+public class TraceFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private RequestTracer tracer;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        return !tracer.isEnabled() || !uri.startsWith("/api/") || uri.startsWith("/api/trace");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!tracer.start("http", request.getMethod() + " " + request.getRequestURI())) {
+            chain.doFilter(request, response);
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            tracer.finish();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.cloud.play.app.wire;
+
+import com.cloud.play.app.dto.PlaybackCommand;
+import com.cloud.play.app.playback.PlaybackState;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Fixed-layout frames of the binary room protocol. All integers are big-endian; every frame starts
+ * with a one-byte type. Client commands are 14 bytes, state frames 30 bytes.
+ *
+ * <pre>
+ * client  JOIN   0x01 roomId (UTF-8, rest of frame)
+ *         PLAY   0x02 flags(1) positionMs(8) rate(float 4)     flags: 1 = position set, 2 = rate set
+ *         PAUSE  0x03 flags(1) positionMs(8) rate(float 4)
+ *         SEEK   0x04 flags(1) positionMs(8) rate(float 4)
+ *         PING   0x05 t0(8)
+ * server  STATE  0x10 flags(1) version(8) positionMs(8) serverTime(8) rate(float 4)   flags: 1 = playing
+ *         PONG   0x11 t0(8) t1(8) t2(8)
+ *         ROOM   0x12 JSON room sync (UTF-8, rest of frame), sent once after JOIN
+ * </pre>
+ */
+public final class BinaryFrames {
+
+    public static final String SUB_PROTOCOL = "cloudplay.bin.v1";
+
+    public static final byte JOIN = 0x01;
+    public static final byte PLAY = 0x02;
+    public static final byte PAUSE = 0x03;
+    public static final byte SEEK = 0x04;
+    public static final byte PING = 0x05;
+    public static final byte STATE = 0x10;
+    public static final byte PONG = 0x11;
+    public static final byte ROOM = 0x12;
+
+    public static final int COMMAND_LENGTH = 14;
+    public static final int PING_LENGTH = 9;
+    public static final int STATE_LENGTH = 30;
+    public static final int PONG_LENGTH = 25;
+
+    public static final int FLAG_POSITION = 1;
+    public static final int FLAG_RATE = 2;
+    public static final int FLAG_PLAYING = 1;
+
+    private BinaryFrames() {
+    }
+
+    public static byte[] encodeState(PlaybackState state) {
+        ByteBuffer frame = ByteBuffer.allocate(STATE_LENGTH);
+        frame.put(STATE);
+        frame.put((byte) (state.isPlaying() ? FLAG_PLAYING : 0));
+        frame.putLong(state.getVersion());
+        frame.putLong(state.getPositionMs());
+        frame.putLong(state.getAnchorMillis());
+        frame.putFloat((float) state.getRate());
+        return frame.array();
+    }
+
+    public static byte[] encodePong(long t0, long t1, long t2) {
+        ByteBuffer frame = ByteBuffer.allocate(PONG_LENGTH);
+        frame.put(PONG);
+        frame.putLong(t0);
+        frame.putLong(t1);
+        frame.putLong(t2);
+        return frame.array();
+    }
+
+    public static byte[] encodeRoom(byte[] json) {
+        ByteBuffer frame = ByteBuffer.allocate(1 + json.length);
+        frame.put(ROOM);
+        frame.put(json);
+        return frame.array();
+    }
+
+    public static String decodeJoin(ByteBuffer frame) {
+        byte[] roomId = new byte[frame.remaining() - 1];
+        frame.get(frame.position() + 1, roomId);
+        return new String(roomId, StandardCharsets.UTF_8);
+    }
+
+    public static PlaybackCommand decodeCommand(ByteBuffer frame) {
+        int start = frame.position();
+        int flags = frame.get(start + 1);
+        PlaybackCommand command = new PlaybackCommand();
+        if ((flags & FLAG_POSITION) != 0) {
+            command.setPositionMs(frame.getLong(start + 2));
+        }
+        if ((flags & FLAG_RATE) != 0) {
+            command.setRate((double) frame.getFloat(start + 10));
+        }
+        return command;
+    }
+}
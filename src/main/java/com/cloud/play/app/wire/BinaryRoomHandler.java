@@ -0,0 +1,168 @@
+package com.cloud.play.app.wire;
+
+import com.cloud.play.app.dto.PlaybackCommand;
+import com.cloud.play.app.playback.PlaybackState;
+import com.cloud.play.app.playback.ServerClock;
+import com.cloud.play.app.service.PlaybackBroadcastEvent;
+import com.cloud.play.app.service.PlaybackCoalescer;
+import com.cloud.play.app.service.PlaybackService;
+import com.cloud.play.app.service.RoomSyncService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.SubProtocolCapable;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.BinaryWebSocketHandler;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Raw WebSocket endpoint speaking {@link BinaryFrames}. It shares the room clock, coalescing and
+ * rate limits with the STOMP path; only the encoding differs. Each state change is encoded once
+ * and the same bytes are written to every session in the room.
+ */
+@Component
+@ConditionalOnProperty(name = "cloudplay.ws.binary.enabled", havingValue = "true", matchIfMissing = true)
+public class BinaryRoomHandler extends BinaryWebSocketHandler implements SubProtocolCapable {
+
+    private static final String ROOM_ATTRIBUTE = "cloudplay.roomId";
+
+    @Autowired
+    private PlaybackService playbackService;
+
+    @Autowired
+    private PlaybackCoalescer playbackCoalescer;
+
+    @Autowired
+    private RoomSyncService roomSyncService;
+
+    @Value("${cloudplay.ws.binary.send-time-limit-ms:5000}")
+    private int sendTimeLimitMs;
+
+    @Value("${cloudplay.ws.binary.buffer-size-limit:65536}")
+    private int bufferSizeLimit;
+
+    private final ConcurrentHashMap<String, BinarySession> sessions = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<BinarySession>> rooms = new ConcurrentHashMap<>();
+
+    @Override
+    public List<String> getSubProtocols() {
+        return List.of(BinaryFrames.SUB_PROTOCOL);
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        // Every state frame is a full state, so a backed-up session only keeps the newest one;
+        // ROOM frames are never shed, since state frames mean nothing without them
+        sessions.put(session.getId(), new BinarySession(session, sendTimeLimitMs, bufferSizeLimit));
+    }
+
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) throws IOException {
+        BinarySession out = sessions.get(session.getId());
+        ByteBuffer frame = message.getPayload();
+        if (out == null || !frame.hasRemaining()) {
+            return;
+        }
+
+        byte type = frame.get(frame.position());
+        switch (type) {
+            case BinaryFrames.JOIN -> join(out, BinaryFrames.decodeJoin(frame));
+            case BinaryFrames.PLAY, BinaryFrames.PAUSE, BinaryFrames.SEEK -> {
+                if (frame.remaining() >= BinaryFrames.COMMAND_LENGTH) {
+                    command(out, type, BinaryFrames.decodeCommand(frame));
+                }
+            }
+            case BinaryFrames.PING -> {
+                if (frame.remaining() >= BinaryFrames.PING_LENGTH) {
+                    long received = ServerClock.nowMillis();
+                    long t0 = frame.getLong(frame.position() + 1);
+                    out.sendMessage(new BinaryMessage(BinaryFrames.encodePong(t0, received, ServerClock.nowMillis())));
+                }
+            }
+            default -> {
+                // Unknown frame types are ignored so newer clients can talk to older servers
+            }
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        BinarySession out = sessions.remove(session.getId());
+        if (out != null) {
+            leave(out);
+        }
+        playbackCoalescer.release(session.getId());
+    }
+
+    public int getSessionCount(String roomId) {
+        Set<BinarySession> members = rooms.get(roomId);
+        return members != null ? members.size() : 0;
+    }
+
+    public Set<String> getRoomIds() {
+        return rooms.keySet();
+    }
+
+    @EventListener
+    public void onPlaybackBroadcast(PlaybackBroadcastEvent event) {
+        Set<BinarySession> targets = rooms.get(event.getRoomId());
+        if (targets == null || targets.isEmpty()) {
+            return;
+        }
+        byte[] frame = BinaryFrames.encodeState(event.getState());
+        for (BinarySession target : targets) {
+            send(target, frame);
+        }
+    }
+
+    private void join(BinarySession session, String roomId) throws IOException {
+        leave(session);
+        session.getAttributes().put(ROOM_ATTRIBUTE, roomId);
+        rooms.computeIfAbsent(roomId, id -> ConcurrentHashMap.newKeySet()).add(session);
+
+        // Video metadata and schedule travel once per join; afterwards only fixed-size frames flow
+        session.sendRoom(BinaryFrames.encodeRoom(roomSyncService.encodeSync(roomId)));
+    }
+
+    private void leave(BinarySession session) {
+        Object roomId = session.getAttributes().remove(ROOM_ATTRIBUTE);
+        if (roomId != null) {
+            rooms.computeIfPresent((String) roomId, (id, members) -> {
+                members.remove(session);
+                return members.isEmpty() ? null : members;
+            });
+        }
+    }
+
+    private void command(WebSocketSession session, byte type, PlaybackCommand command) {
+        String roomId = (String) session.getAttributes().get(ROOM_ATTRIBUTE);
+        if (roomId == null) {
+            return;
+        }
+        Optional<PlaybackState> state = switch (type) {
+            case BinaryFrames.PLAY -> playbackService.play(roomId, command);
+            case BinaryFrames.PAUSE -> playbackService.pause(roomId, command);
+            default -> playbackService.seek(roomId, command);
+        };
+        state.ifPresent(changed -> playbackCoalescer.changed(roomId, session.getId()));
+    }
+
+    private void send(BinarySession session, byte[] frame) {
+        try {
+            // BinaryMessage wraps the shared array; no bytes are copied per recipient
+            session.sendState(frame);
+        } catch (IOException | RuntimeException e) {
+            // The transport closes broken sessions and afterConnectionClosed cleans up
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.cloud.play.app.wire;
+
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Outbound side of one binary session. State frames carry the full playback state, so only the
+ * newest unsent one is kept. Every other frame (ROOM, PONG) is queued and always delivered ahead
+ * of it; a client that lets those pile up past the buffer limit is disconnected, not shed.
+ * Whichever thread finds the session idle does the socket writes, as in Spring's concurrent
+ * session decorator.
+ */
+class BinarySession extends WebSocketSessionDecorator {
+
+    private final long sendTimeLimitNanos;
+    private final int bufferSizeLimit;
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Deque<WebSocketMessage<?>> queued = new ArrayDeque<>();
+    private int queuedBytes;
+    private BinaryMessage latestState;
+    private volatile long sendStartedAt;
+    private volatile boolean limitExceeded;
+    private final AtomicBoolean closing = new AtomicBoolean();
+
+    BinarySession(WebSocketSession delegate, int sendTimeLimitMillis, int bufferSizeLimit) {
+        super(delegate);
+        this.sendTimeLimitNanos = sendTimeLimitMillis * 1_000_000L;
+        this.bufferSizeLimit = bufferSizeLimit;
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        if (limitExceeded) {
+            return;
+        }
+        synchronized (queued) {
+            queued.addLast(message);
+            queuedBytes += message.getPayloadLength();
+            if (queuedBytes > bufferSizeLimit) {
+                limitExceeded = true;
+            }
+        }
+        flush();
+    }
+
+    // Replaces any state frame that has not gone out yet
+    void sendState(byte[] frame) throws IOException {
+        if (limitExceeded) {
+            return;
+        }
+        synchronized (queued) {
+            latestState = new BinaryMessage(frame);
+        }
+        flush();
+    }
+
+    // A state frame still pending from the previous room must not follow the new ROOM frame
+    void sendRoom(byte[] frame) throws IOException {
+        synchronized (queued) {
+            latestState = null;
+        }
+        sendMessage(new BinaryMessage(frame));
+    }
+
+    private void flush() throws IOException {
+        while (!limitExceeded && hasPending()) {
+            if (!flushLock.tryLock()) {
+                // Another thread is writing and will pick our frame up; only check it is not stuck
+                long started = sendStartedAt;
+                if (started != 0 && System.nanoTime() - started > sendTimeLimitNanos) {
+                    limitExceeded = true;
+                }
+                break;
+            }
+            try {
+                WebSocketMessage<?> next;
+                while (!limitExceeded && (next = poll()) != null) {
+                    sendStartedAt = System.nanoTime();
+                    try {
+                        getDelegate().sendMessage(next);
+                    } finally {
+                        sendStartedAt = 0;
+                    }
+                }
+            } finally {
+                flushLock.unlock();
+            }
+            // Re-check: a frame added after our last poll but before unlock would otherwise wait
+        }
+        if (limitExceeded && closing.compareAndSet(false, true)) {
+            close(CloseStatus.SESSION_NOT_RELIABLE);
+        }
+    }
+
+    private boolean hasPending() {
+        synchronized (queued) {
+            return !queued.isEmpty() || latestState != null;
+        }
+    }
+
+    private WebSocketMessage<?> poll() {
+        synchronized (queued) {
+            WebSocketMessage<?> next = queued.pollFirst();
+            if (next != null) {
+                queuedBytes -= next.getPayloadLength();
+                return next;
+            }
+            next = latestState;
+            latestState = null;
+            return next;
+        }
+    }
+}
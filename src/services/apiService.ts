@@ -1,5 +1,5 @@
 
-import { Room, User, Video } from '@/lib/types';
+import { CursorPage, Room, UploadJob, User, Video } from '@/lib/types';
 import { toast } from "@/components/ui/use-toast";
 
 // Base API URL - replace with your SpringBoot API URL
@@ -29,10 +29,23 @@ async function fetchData<T>(endpoint: string, options: RequestInit = {}): Promis
   }
 }
 
+// Follow nextCursor until the listing is exhausted, one page-sized request at a time
+async function fetchAllPages<T>(endpoint: string, pageSize = 100): Promise<T[]> {
+  const items: T[] = [];
+  let cursor: string | null = null;
+  do {
+    const query = `limit=${pageSize}` + (cursor ? `&cursor=${encodeURIComponent(cursor)}` : '');
+    const page: CursorPage<T> = await fetchData<CursorPage<T>>(`${endpoint}?${query}`);
+    items.push(...page.items);
+    cursor = page.nextCursor;
+  } while (cursor);
+  return items;
+}
+
 // Get list of available videos
 export async function getVideos(): Promise<Video[]> {
   try {
-    return await fetchData<Video[]>('/videos');
+    return await fetchAllPages<Video>('/videos');
   } catch (error) {
     console.error('Error fetching videos:', error);
     // Return empty array instead of throwing to prevent breaking the UI
@@ -55,6 +68,27 @@ export async function getVideoById(id: string): Promise<Video> {
   }
 }
 
+// Wait for an upload job to finish and return the published video
+export async function waitForUploadJob(
+  jobId: string,
+  onProgress?: (job: UploadJob) => void,
+  intervalMs = 1000
+): Promise<Video> {
+  for (;;) {
+    const job = await fetchData<UploadJob>(`/videos/jobs/${jobId}`);
+    onProgress?.(job);
+
+    if (job.status === 'COMPLETED' && job.videoId) {
+      return await fetchData<Video>(`/videos/${job.videoId}`);
+    }
+    if (job.status === 'FAILED') {
+      throw new Error(job.error || 'Video processing failed');
+    }
+
+    await new Promise(resolve => setTimeout(resolve, intervalMs));
+  }
+}
+
 // Upload a video
 export async function uploadVideo(file: File, title: string, description: string): Promise<Video> {
   try {
@@ -72,7 +106,8 @@ export async function uploadVideo(file: File, title: string, description: string
       throw new Error(`Video upload failed: ${response.statusText}`);
     }
     
-    return await response.json();
+    const job = await response.json() as UploadJob;
+    return await waitForUploadJob(job.id);
   } catch (error) {
     console.error('Upload failed:', error);
     toast({
@@ -87,7 +122,7 @@ export async function uploadVideo(file: File, title: string, description: string
 // Get available rooms
 export async function getRooms(): Promise<Room[]> {
   try {
-    return await fetchData<Room[]>('/rooms');
+    return await fetchAllPages<Room>('/rooms');
   } catch (error) {
     console.error('Error fetching rooms:', error);
     // Return empty array instead of throwing to prevent breaking the UI
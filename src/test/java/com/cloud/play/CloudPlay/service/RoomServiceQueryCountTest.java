@@ -0,0 +1,156 @@
+package com.cloud.play.CloudPlay.service;
+
+import com.cloud.play.CloudPlay.DTO.RoomDTO;
+import com.cloud.play.CloudPlay.entity.RoomEntity;
+import com.cloud.play.CloudPlay.repository.RoomRepository;
+import com.cloud.play.CloudPlay.repository.UserRepository;
+import com.cloud.play.app.CloudPlayApplication;
+import com.cloud.play.app.entity.VideoEntity;
+import com.cloud.play.app.pagination.CursorPage;
+import com.cloud.play.app.repository.VideoRepository;
+import com.cloud.play.app.service.RoomStartScheduler;
+import com.cloud.play.app.service.VideoService;
+import com.cloud.play.app.storage.VideoStorage;
+import com.cloud.play.app.support.MongoCommandCounter;
+import com.cloud.play.app.trace.RequestTracer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Guards the room list against N+1 lookups: however many rooms are on a page, assembling the
+ * DTOs costs one rooms query and at most one batched videos query.
+ */
+@DataMongoTest
+@ContextConfiguration(classes = {CloudPlayApplication.class, RoomServiceQueryCountTest.Config.class})
+@ActiveProfiles("test")
+class RoomServiceQueryCountTest {
+
+    private static final int VIDEOS = 10;
+    private static final int ROOMS = 40;
+    private static final int ROOMS_WITHOUT_VIDEO = 5;
+
+    // The slice only scans Mongo components, so pull in the services under test explicitly
+    @Configuration
+    @Import({RoomService.class, VideoService.class, RequestTracer.class})
+    static class Config {
+
+        @Bean
+        MongoCommandCounter mongoCommandCounter() {
+            return new MongoCommandCounter();
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper().findAndRegisterModules();
+        }
+    }
+
+    @MockBean
+    private UserRepository userRepository;
+
+    @MockBean
+    private RoomStartScheduler roomStartScheduler;
+
+    @MockBean
+    private VideoStorage videoStorage;
+
+    @Autowired
+    private RoomService roomService;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private VideoRepository videoRepository;
+
+    @Autowired
+    private MongoCommandCounter counter;
+
+    @BeforeEach
+    void seed() {
+        roomRepository.deleteAll();
+        videoRepository.deleteAll();
+
+        // Fresh ids on every run, so nothing is served from a previous test's video cache
+        List<VideoEntity> videos = new ArrayList<>();
+        for (int i = 0; i < VIDEOS; i++) {
+            VideoEntity video = new VideoEntity();
+            video.setTitle("video-" + i);
+            video.setCloudinaryUrl("/api/videos/" + i + "/stream");
+            videos.add(video);
+        }
+        videos = videoRepository.saveAll(videos);
+
+        List<RoomEntity> rooms = new ArrayList<>();
+        for (int i = 0; i < ROOMS + ROOMS_WITHOUT_VIDEO; i++) {
+            RoomEntity room = new RoomEntity();
+            room.setName("room-" + i);
+            if (i < ROOMS) {
+                room.setCurrentVideoId(videos.get(i % VIDEOS).getId());
+            }
+            rooms.add(room);
+        }
+        roomRepository.saveAll(rooms);
+
+        counter.reset();
+    }
+
+    @Test
+    void allRoomsCostOneRoomQueryAndOneVideoBatch() {
+        List<RoomDTO> rooms = roomService.getAllRooms();
+
+        assertEquals(ROOMS + ROOMS_WITHOUT_VIDEO, rooms.size());
+        assertEquals(1, counter.reads("rooms"), () -> "rooms reads: " + counter.getCommands());
+        assertEquals(1, counter.reads("videos"), () -> "videos reads: " + counter.getCommands());
+        assertVideosResolved(rooms);
+    }
+
+    @Test
+    void pageCostsOneRoomQueryAndOneVideoBatch() {
+        CursorPage<RoomDTO> page = roomService.getRooms(false, null, null, null, 20);
+
+        assertEquals(20, page.getItems().size());
+        assertNotNull(page.getNextCursor());
+        assertEquals(1, counter.reads("rooms"), () -> "rooms reads: " + counter.getCommands());
+        assertEquals(1, counter.reads("videos"), () -> "videos reads: " + counter.getCommands());
+    }
+
+    @Test
+    void cachedVideosAreNotFetchedAgain() {
+        roomService.getAllRooms();
+        counter.reset();
+
+        List<RoomDTO> rooms = roomService.getAllRooms();
+
+        assertEquals(1, counter.reads("rooms"));
+        assertEquals(0, counter.reads("videos"), () -> "videos reads: " + counter.getCommands());
+        assertVideosResolved(rooms);
+    }
+
+    private static void assertVideosResolved(List<RoomDTO> rooms) {
+        long withVideo = rooms.stream().filter(r -> r.getCurrentVideo() != null).count();
+        assertEquals(ROOMS, withVideo);
+    }
+}
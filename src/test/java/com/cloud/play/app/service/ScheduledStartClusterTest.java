@@ -0,0 +1,252 @@
+package com.cloud.play.app.service;
+
+import com.cloud.play.CloudPlay.entity.RoomEntity;
+import com.cloud.play.CloudPlay.repository.RoomRepository;
+import com.cloud.play.app.CloudPlayApplication;
+import com.cloud.play.app.entity.ScheduleLeaseEntity;
+import de.flapdoodle.embed.mongo.commands.ServerAddress;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.AbstractSubscribableChannel;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.scheduling.annotation.ScheduledAnnotationBeanPostProcessor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Runs several application contexts against one embedded Mongo, each standing in for a node, and
+ * checks the cluster behaviour of scheduled starts: every room starts exactly once, a node that
+ * stops heartbeating has its rooms taken over, and a room fires on time on the node that
+ * scheduled it even when another node owns its shard.
+ */
+class ScheduledStartClusterTest {
+
+    private static final int SHARDS = 8;
+    private static final String ROOM_TOPIC = "/topic/room/";
+
+    private static TransitionWalker.ReachedState<RunningMongodProcess> mongod;
+
+    private final List<Node> nodes = new ArrayList<>();
+    private String mongoUri;
+
+    @BeforeAll
+    static void startMongo() {
+        mongod = Mongod.instance().start(Version.Main.V6_0);
+    }
+
+    @AfterAll
+    static void stopMongo() {
+        mongod.close();
+    }
+
+    @AfterEach
+    void stopNodes() {
+        nodes.forEach(Node::close);
+        nodes.clear();
+    }
+
+    @Test
+    void everyRoomStartsExactlyOnceAcrossNodes() throws Exception {
+        Node a = startNode();
+        Node b = startNode();
+        awaitLeasesSplit(a);
+
+        List<String> rooms = insertRooms(a, 30, LocalDateTime.now().plusSeconds(3));
+
+        await(Duration.ofSeconds(15), () -> starts(a, b).size() >= rooms.size());
+        // Give a duplicate the chance to show up before counting
+        Thread.sleep(1000);
+
+        Map<String, Long> perRoom = starts(a, b).stream()
+            .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+        for (String roomId : rooms) {
+            assertEquals(1L, perRoom.getOrDefault(roomId, 0L), "START count for room " + roomId);
+        }
+        assertFalse(a.starts.isEmpty(), "node a owns shards and should have fired some rooms");
+        assertFalse(b.starts.isEmpty(), "node b owns shards and should have fired some rooms");
+    }
+
+    @Test
+    void survivorTakesOverRoomsOfANodeThatStopsHeartbeating() throws Exception {
+        Node a = startNode();
+        Node b = startNode();
+        awaitLeasesSplit(a);
+
+        List<String> rooms = insertRooms(a, 20, LocalDateTime.now().plusSeconds(3));
+        // Both nodes pick the rooms up on their next refresh
+        Thread.sleep(1500);
+        a.hang();
+
+        await(Duration.ofSeconds(20), () -> b.starts.size() >= rooms.size());
+
+        assertTrue(a.starts.isEmpty(), "a hung node must not fire anything");
+        assertEquals(Set.copyOf(rooms), Set.copyOf(b.starts));
+        assertEquals(rooms.size(), b.starts.size(), "each room must start exactly once");
+    }
+
+    @Test
+    void roomScheduledOnNonOwnerFiresOnTime() throws Exception {
+        // No refresh and a long takeover window: only the on-time path can start these rooms
+        Node a = startNode("cloudplay.schedule.refresh-interval-ms=600000", "cloudplay.schedule.takeover-seconds=30");
+        Node b = startNode("cloudplay.schedule.refresh-interval-ms=600000", "cloudplay.schedule.takeover-seconds=30");
+        awaitLeasesSplit(a);
+
+        LocalDateTime scheduledTime = LocalDateTime.now().plusSeconds(2);
+        ScheduleLeaseService aLeases = a.context.getBean(ScheduleLeaseService.class);
+        RoomStartScheduler aScheduler = a.context.getBean(RoomStartScheduler.class);
+        List<String> remote = new ArrayList<>();
+        for (String roomId : insertRooms(a, 20, scheduledTime)) {
+            // What createRoom does after saving
+            aScheduler.schedule(roomId, scheduledTime);
+            if (!aLeases.owns(roomId)) {
+                remote.add(roomId);
+            }
+        }
+        assertFalse(remote.isEmpty(), "expected some rooms on shards owned by node b");
+
+        await(Duration.ofSeconds(10), () -> a.starts.containsAll(remote));
+
+        long scheduledMillis = scheduledTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        for (String roomId : remote) {
+            long lateness = a.startedAt.get(roomId) - scheduledMillis;
+            assertTrue(lateness < 1000, "room " + roomId + " started " + lateness + " ms late");
+        }
+        assertTrue(b.starts.isEmpty(), "node b never loaded these rooms");
+    }
+
+    private Node startNode(String... extraProperties) {
+        if (mongoUri == null) {
+            // A fresh database per test, so leases and rooms from earlier tests don't leak in
+            ServerAddress address = mongod.current().getServerAddress();
+            mongoUri = "mongodb://" + address.getHost() + ":" + address.getPort()
+                + "/cloudplay-cluster-" + UUID.randomUUID();
+        }
+        Node node = new Node(mongoUri, extraProperties);
+        nodes.add(node);
+        return node;
+    }
+
+    private static List<String> insertRooms(Node node, int count, LocalDateTime scheduledTime) {
+        List<RoomEntity> rooms = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            RoomEntity room = new RoomEntity();
+            room.setName("scheduled-" + i);
+            room.setScheduledTime(scheduledTime);
+            rooms.add(room);
+        }
+        return node.context.getBean(RoomRepository.class).saveAll(rooms).stream()
+            .map(RoomEntity::getId)
+            .collect(Collectors.toList());
+    }
+
+    private void awaitLeasesSplit(Node node) throws InterruptedException {
+        MongoTemplate mongoTemplate = node.context.getBean(MongoTemplate.class);
+        await(Duration.ofSeconds(15), () -> {
+            Date now = new Date();
+            List<ScheduleLeaseEntity> live = mongoTemplate.findAll(ScheduleLeaseEntity.class).stream()
+                .filter(lease -> lease.getExpiresAt().after(now))
+                .collect(Collectors.toList());
+            long owners = live.stream().map(ScheduleLeaseEntity::getOwner).distinct().count();
+            return live.size() == SHARDS && owners == nodes.size();
+        });
+    }
+
+    private static List<String> starts(Node... nodes) {
+        return Stream.of(nodes).flatMap(node -> node.starts.stream()).collect(Collectors.toList());
+    }
+
+    private static void await(Duration timeout, BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("condition not met within " + timeout);
+            }
+            Thread.sleep(50);
+        }
+    }
+
+    /** One application context; records the START broadcasts it puts on its broker channel. */
+    private static final class Node implements AutoCloseable {
+
+        private final ConfigurableApplicationContext context;
+        private final List<String> starts = new CopyOnWriteArrayList<>();
+        private final Map<String, Long> startedAt = new ConcurrentHashMap<>();
+
+        Node(String mongoUri, String... extraProperties) {
+            List<String> properties = new ArrayList<>(List.of(
+                "server.port=0",
+                "spring.autoconfigure.exclude=de.flapdoodle.embed.mongo.spring.autoconfigure.EmbeddedMongoAutoConfiguration",
+                "spring.data.mongodb.uri=" + mongoUri,
+                "cloudplay.schedule.shards=" + SHARDS,
+                "cloudplay.schedule.lease-seconds=3",
+                "cloudplay.schedule.heartbeat-ms=300",
+                "cloudplay.schedule.refresh-interval-ms=500",
+                "cloudplay.schedule.takeover-seconds=2"));
+            // Later entries win, so per-test overrides replace the defaults above
+            properties.addAll(List.of(extraProperties));
+            context = new SpringApplicationBuilder(CloudPlayApplication.class)
+                .profiles("test")
+                .properties(properties.toArray(String[]::new))
+                .run();
+
+            context.getBean("brokerChannel", AbstractSubscribableChannel.class).addInterceptor(new ChannelInterceptor() {
+                @Override
+                public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                    String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+                    if (destination != null && destination.startsWith(ROOM_TOPIC)
+                            && message.getPayload() instanceof byte[] json
+                            && new String(json, StandardCharsets.UTF_8).contains("\"type\":\"START\"")) {
+                        String roomId = destination.substring(ROOM_TOPIC.length());
+                        startedAt.putIfAbsent(roomId, System.currentTimeMillis());
+                        starts.add(roomId);
+                    }
+                    return message;
+                }
+            });
+        }
+
+        /** Stops heartbeats, refreshes and the dispatcher without releasing leases, like a stalled JVM. */
+        void hang() {
+            context.getBean(ScheduleLeaseService.class).stopHeartbeat();
+            context.getBean(ScheduledAnnotationBeanPostProcessor.class).destroy();
+            context.getBean(RoomStartScheduler.class).stop();
+        }
+
+        @Override
+        public void close() {
+            context.close();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.cloud.play.app.support;
+
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Records every command the driver sends so tests can assert how many round-trips a code path
+ * makes. Register it as a bean; it hooks itself into the auto-configured client.
+ */
+public class MongoCommandCounter implements CommandListener, MongoClientSettingsBuilderCustomizer {
+
+    public record Command(String name, String collection) {
+    }
+
+    private final List<Command> commands = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void customize(com.mongodb.MongoClientSettings.Builder builder) {
+        builder.addCommandListener(this);
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        BsonDocument command = event.getCommand();
+        // find/aggregate/count name the collection in their first field; getMore carries it separately
+        BsonValue target = "getMore".equals(event.getCommandName())
+            ? command.get("collection")
+            : command.get(event.getCommandName());
+        String collection = target != null && target.isString() ? target.asString().getValue() : null;
+        commands.add(new Command(event.getCommandName(), collection));
+    }
+
+    public int count(String commandName, String collection) {
+        return (int) commands.stream()
+            .filter(c -> c.name().equals(commandName) && collection.equals(c.collection()))
+            .count();
+    }
+
+    /** Reads against a collection, whatever shape the driver used to issue them. */
+    public int reads(String collection) {
+        return count("find", collection) + count("aggregate", collection) + count("getMore", collection);
+    }
+
+    public List<Command> getCommands() {
+        return List.copyOf(commands);
+    }
+
+    public void reset() {
+        commands.clear();
+    }
+}